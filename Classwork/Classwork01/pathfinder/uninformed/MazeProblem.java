@@ -32,6 +32,12 @@ public class MazeProblem {
         return result;
     }
 
+    // Direction ordinals reported by expand, with their action Strings and offsets
+    public static final byte UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+    private static final String[] ACTIONS = {"U", "D", "L", "R"};
+    private static final int[] COL_OFFSETS = {0, 0, -1, 1},
+                               ROW_OFFSETS = {-1, 1, 0, 0};
+
 
     // Constructor
     // -----------------------------------------------------------------------------
@@ -86,6 +92,85 @@ public class MazeProblem {
     // Methods
     // -----------------------------------------------------------------------------
 
+    /**
+     * @return The number of rows in this maze
+     */
+    public int getRows () {
+        return rows;
+    }
+
+    /**
+     * @return The number of columns in this maze
+     */
+    public int getCols () {
+        return cols;
+    }
+
+    /**
+     * Returns the state id of the given state, i.e., its grid index row * cols + col.
+     * State ids run from 0 to rows * cols - 1 and are used by the allocation-free
+     * expand method.
+     *
+     * @param state A MazeState (col, row) in this maze
+     * @return The state id of that state
+     */
+    public int getStateId (MazeState state) {
+        return state.row * cols + state.col;
+    }
+
+    /**
+     * @param stateId A state id in this maze
+     * @return The MazeState (col, row) with the given state id
+     */
+    public MazeState getState (int stateId) {
+        return new MazeState(stateId % cols, stateId / cols);
+    }
+
+    /**
+     * Returns the action String ("U", "D", "L" or "R") of a direction ordinal.
+     *
+     * @param direction One of UP, DOWN, LEFT or RIGHT
+     * @return The action String for that direction
+     */
+    public static String getAction (byte direction) {
+        return ACTIONS[direction];
+    }
+
+    /**
+     * Writes the ids of the states reachable from the given state into outNeighbors,
+     * and the direction ordinals (UP, DOWN, LEFT, RIGHT) of the actions leading to
+     * them into outActions. This is the allocation-free counterpart to getTransitions,
+     * intended for search loops that expand many states.
+     *
+     * @param stateId The id of the state to expand
+     * @param outNeighbors Array of length at least 4 that receives neighbor state ids
+     * @param outActions Array of length at least 4 that receives direction ordinals
+     * @return The number of neighbors written
+     */
+    public int expand (int stateId, int[] outNeighbors, byte[] outActions) {
+        int col = stateId % cols, row = stateId / cols, count = 0;
+        for (byte direction = 0; direction < 4; direction++) {
+            int newCol = col + COL_OFFSETS[direction], newRow = row + ROW_OFFSETS[direction];
+            if (newRow >= 0 && newRow < rows && newCol >= 0 && newCol < cols &&
+                maze[newRow].charAt(newCol) != 'X') {
+                outNeighbors[count] = newRow * cols + newCol;
+                outActions[count] = direction;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns whether or not the state with the given id is the Goal state.
+     *
+     * @param stateId id of the state to test
+     * @return Boolean of whether or not the state is the Goal.
+     */
+    public boolean isGoal (int stateId) {
+        return GOAL_STATE != null && stateId == getStateId(GOAL_STATE);
+    }
+
     /**
      * Returns whether or not the given state is a Goal state.
      *
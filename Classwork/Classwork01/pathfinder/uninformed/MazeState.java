@@ -39,7 +39,10 @@ public class MazeState {
 
     @Override
     public int hashCode () {
-        return row * col;
+        // Distinct for every state with 0 <= col, row < 65536, unlike row * col,
+        // which sent all of row 0 and column 0 (and every transposed pair) to
+        // the same bucket
+        return (col << 16) ^ row;
     }
 
     public String toString () {
@@ -7,102 +7,160 @@ package pathfinder.uninformed;
 import java.util.*;
 
 /**
- * Maze Pathfinding algorithm that implements a basic, uninformed, breadth-first tree search.
+ * Maze Pathfinding algorithm that implements a basic, uninformed, breadth-first graph search.
  */
 public class Pathfinder {
 
+    // Parent recorded for the root of a search tree, and for states not yet reached
+    private static final int ROOT = -1, UNREACHED = -2;
+
     /**
      * Given a MazeProblem, which specifies the actions and transitions available in the
      * search, returns a solution to the problem as a sequence of actions that leads from
-     * the initial to a goal state.
+     * the initial to a goal state. Implemented as a breadth-first graph search: each
+     * state is enqueued at most once, so the search is linear in the size of the maze.
      *
      * @param problem A MazeProblem that specifies the maze, actions, transitions.
      * @return An ArrayList of Strings representing actions that lead from the initial to
-     * the goal state, of the format: ["R", "R", "L", ...]
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
      */
     public static ArrayList<String> solve(MazeProblem problem) {
-        /// TODO: Initialize frontier -- what data structure should you use here for
-        // breadth-first search? Recall: The frontier holds SearchTreeNodes!
-        Queue<SearchTreeNode> frontier = new LinkedList<>();
-        ArrayList<String> result = new ArrayList<>();
-        Map<String, MazeState> transitions;
-        SearchTreeNode currentNode;
-
-        // TODO: Add new SearchTreeNode representing the problem's initial state to the
-        // frontier. Since this is the initial state, the node's action and parent will
-        // be null
-        frontier.add(new SearchTreeNode(problem.INITIAL_STATE, null, null));
-
-
-        // TODO: Loop: as long as the frontier is not empty...
+        int size = problem.getRows() * problem.getCols();
+        StateQueue frontier = new StateQueue(size);
+        // The search tree, indexed by state id: each state's parent (ROOT for the
+        // initial state, UNREACHED if not yet generated) and the action leading
+        // to it from its parent
+        int[] parents = new int[size];
+        byte[] moves = new byte[size];
+        Arrays.fill(parents, UNREACHED);
+        int[] neighbors = new int[4];
+        byte[] actions = new byte[4];
+
+        int startId = problem.getStateId(problem.INITIAL_STATE);
+        parents[startId] = ROOT;
+        if (problem.isGoal(startId)) {
+            return buildPath(parents, moves, startId);
+        }
+        frontier.add(startId);
 
         while (!frontier.isEmpty()) {
-
-
-            // TODO: Get the next node to expand by the ordering of breadth-first search
-            currentNode = frontier.peek();
-
-            // TODO: If that node's state is the goal (see problem's isGoal method),
-            // you're done! Return the solution
-            // [Hint] Use a helper method to collect the solution from the current node!
-            if (problem.isGoal(currentNode.state)) {
-                return buildPath(currentNode);
-            }
-
-            // TODO: Otherwise, must generate children to keep searching. So, use the
-            // problem's getTransitions method from the currently expanded node's state...
-            transitions = problem.getTransitions(currentNode.state);
-
-            // TODO: ...and *for each* of those transition states...
-            // [Hint] Look up how to iterate through <key, value> pairs in a Map -- an
-            // example of this is already done in the MazeProblem's getTransitions method
-            for (Map.Entry<String, MazeState> action : transitions.entrySet()) {
-                // TODO: ...add a new SearchTreeNode to the frontier with the appropriate
-                // action, state, and parent
-                frontier.add(new SearchTreeNode(action.getValue(), action.getKey(), currentNode));
+            int currentId = frontier.poll();
+
+            int count = problem.expand(currentId, neighbors, actions);
+            for (int i = 0; i < count; i++) {
+                int nextId = neighbors[i];
+                if (parents[nextId] != UNREACHED) {
+                    continue;
+                }
+                parents[nextId] = currentId;
+                moves[nextId] = actions[i];
+
+                // Every step costs the same, so the first path to generate the goal
+                // is a shortest one; no need to wait until it is expanded
+                if (problem.isGoal(nextId)) {
+                    return buildPath(parents, moves, nextId);
+                }
+                frontier.add(nextId);
             }
-            frontier.remove();
         }
-
-        // Should never get here, but just return null to make the compiler happy
         return null;
     }
 
-    public static ArrayList<String> buildPath(SearchTreeNode root) {
-        Stack<String> temp = new Stack<>();
-        ArrayList<String> result = new ArrayList<>();
-        while (root.parent != null) {
-            temp.add(root.action);
-            root = root.parent;
+    /**
+     * Given a MazeProblem, returns a shortest solution found by a bidirectional
+     * breadth-first search: one search grows forward from the initial state and
+     * another backward from the goal, a whole layer at a time, until they meet.
+     * Each only has to cover about half the distance, so far fewer states are
+     * expanded than by a single breadth-first search on large open mazes.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solveBidirectional(MazeProblem problem) {
+        if (problem.GOAL_STATE == null) {
+            return null;
+        }
+        int size = problem.getRows() * problem.getCols();
+        int startId = problem.getStateId(problem.INITIAL_STATE), goalId = problem.getStateId(problem.GOAL_STATE);
+
+        // Each direction keeps its search tree as parents and moves by state id,
+        // and its frontier as a queue of state ids
+        int[] forward = new int[size], backward = new int[size];
+        byte[] forwardMoves = new byte[size], backwardMoves = new byte[size];
+        Arrays.fill(forward, UNREACHED);
+        Arrays.fill(backward, UNREACHED);
+        StateQueue forwardQueue = new StateQueue(size), backwardQueue = new StateQueue(size);
+        int[] neighbors = new int[4];
+        byte[] actions = new byte[4];
+
+        forward[startId] = ROOT;
+        backward[goalId] = ROOT;
+        forwardQueue.add(startId);
+        backwardQueue.add(goalId);
+        int meetingId = (startId == goalId) ? startId : -1;
+
+        while (meetingId == -1 && !forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+            // Expand one whole layer of the smaller frontier
+            boolean isForward = forwardQueue.size() <= backwardQueue.size();
+            int[] mine = (isForward) ? forward : backward,
+                  theirs = (isForward) ? backward : forward;
+            byte[] myMoves = (isForward) ? forwardMoves : backwardMoves;
+            StateQueue queue = (isForward) ? forwardQueue : backwardQueue;
+
+            for (int layer = queue.size(); layer > 0 && meetingId == -1; layer--) {
+                int currentId = queue.poll();
+                int count = problem.expand(currentId, neighbors, actions);
+                for (int i = 0; i < count && meetingId == -1; i++) {
+                    int nextId = neighbors[i];
+                    if (mine[nextId] != UNREACHED) {
+                        continue;
+                    }
+                    // Backward moves lead from a state to its parent, i.e., they are
+                    // the opposite of the one expanded; direction ordinals pair up
+                    // opposites as (UP, DOWN), (LEFT, RIGHT)
+                    mine[nextId] = currentId;
+                    myMoves[nextId] = (isForward) ? actions[i] : (byte) (actions[i] ^ 1);
+                    queue.add(nextId);
+                    // All of the other direction's nodes are within one layer of
+                    // each other, so the first meeting is on a shortest path
+                    if (theirs[nextId] != UNREACHED) {
+                        meetingId = nextId;
+                    }
+                }
+            }
         }
-        while (!temp.isEmpty()) {
-            result.add(temp.pop());
+        if (meetingId == -1) {
+            return null;
+        }
+
+        ArrayList<String> result = buildPath(forward, forwardMoves, meetingId);
+        for (int id = meetingId; backward[id] != ROOT; id = backward[id]) {
+            result.add(MazeProblem.getAction(backwardMoves[id]));
         }
         return result;
     }
-}
-
-/**
- * SearchTreeNode that is used in the Search algorithm to construct the Search
- * tree.
- */
-class SearchTreeNode {
-
-    MazeState state;
-    String action;
-    SearchTreeNode parent;
 
     /**
-     * Constructs a new SearchTreeNode to be used in the Search Tree.
+     * Reconstructs the path to the given state from a search tree recorded as
+     * arrays indexed by state id, walking the parent links twice: once to size
+     * the result, and once to fill it in from the end.
      *
-     * @param state  The MazeState (col, row) that this node represents.
-     * @param action The action that *led to* this state / node.
-     * @param parent Reference to parent SearchTreeNode in the Search Tree.
+     * @param parents Each state's parent, or ROOT for the root
+     * @param moves The direction ordinal of the action leading to each state
+     * @param endId id of the state to build the path to
+     * @return The actions leading from the root to the given state
      */
-    SearchTreeNode(MazeState state, String action, SearchTreeNode parent) {
-        this.state = state;
-        this.action = action;
-        this.parent = parent;
+    public static ArrayList<String> buildPath(int[] parents, byte[] moves, int endId) {
+        int length = 0;
+        for (int id = endId; parents[id] != ROOT; id = parents[id]) {
+            length++;
+        }
+        String[] path = new String[length];
+        for (int id = endId; parents[id] != ROOT; id = parents[id]) {
+            path[--length] = MazeProblem.getAction(moves[id]);
+        }
+        return new ArrayList<>(Arrays.asList(path));
     }
 
 }
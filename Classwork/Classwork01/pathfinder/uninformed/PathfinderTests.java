@@ -47,4 +47,55 @@ public class PathfinderTests {
         assertEquals(12, result[1]); // Ensure that the solution is optimal
     }
 
+    @Test
+    public void testPathfinder_bidirectional() {
+        String[] maze = {
+            "XXXXXXX",
+            "X.....X",
+            "XIX.X.X",
+            "XX.X..X",
+            "XG....X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solveBidirectional(prob);
+
+        int[] result = prob.testSolution(solution);
+        assertEquals(1,  result[0]); // Test that result is a solution
+        assertEquals(12, result[1]); // Ensure that the solution is optimal
+    }
+
+    @Test
+    public void testMazeProblem_expand() {
+        // No outer walls, so that the maze's borders are exercised directly
+        String[] maze = {
+            "I.X",
+            ".X.",
+            "..G"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        // Corners, next to walls, and a wall cell itself, whose open neighbors
+        // are reported in direction order
+        assertExpands(prob, 0, new int[] {3, 1}, new byte[] {MazeProblem.DOWN, MazeProblem.RIGHT});
+        assertExpands(prob, 1, new int[] {0}, new byte[] {MazeProblem.LEFT});
+        assertExpands(prob, 7, new int[] {6, 8}, new byte[] {MazeProblem.LEFT, MazeProblem.RIGHT});
+        assertExpands(prob, 8, new int[] {5, 7}, new byte[] {MazeProblem.UP, MazeProblem.LEFT});
+        assertExpands(prob, 4, new int[] {1, 7, 3, 5},
+                      new byte[] {MazeProblem.UP, MazeProblem.DOWN, MazeProblem.LEFT, MazeProblem.RIGHT});
+        assertEquals("U", MazeProblem.getAction(MazeProblem.UP));
+        assertEquals("D", MazeProblem.getAction(MazeProblem.DOWN));
+        assertEquals("L", MazeProblem.getAction(MazeProblem.LEFT));
+        assertEquals("R", MazeProblem.getAction(MazeProblem.RIGHT));
+    }
+
+    private static void assertExpands (MazeProblem prob, int stateId, int[] neighbors, byte[] actions) {
+        int[] outNeighbors = new int[4];
+        byte[] outActions = new byte[4];
+        assertEquals(neighbors.length, prob.expand(stateId, outNeighbors, outActions));
+        for (int i = 0; i < neighbors.length; i++) {
+            assertEquals(neighbors[i], outNeighbors[i]);
+            assertEquals(actions[i], outActions[i]);
+        }
+    }
+
 }
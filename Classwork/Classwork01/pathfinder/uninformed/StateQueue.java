@@ -0,0 +1,87 @@
+package pathfinder.uninformed;
+
+import java.util.NoSuchElementException;
+
+/**
+ * First-in, first-out queue of int state ids stored in a primitive ring buffer,
+ * used as the breadth-first search frontier. Adding and polling never allocate
+ * unless the buffer must grow, and the buffer may be reused across searches.
+ */
+public class StateQueue {
+
+    private int[] buffer;
+    private int head, size;
+
+    /**
+     * Constructs a new, empty StateQueue.
+     *
+     * @param capacity Initial number of state ids the queue can hold before growing
+     */
+    StateQueue (int capacity) {
+        buffer = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Adds a state id to the back of the queue.
+     *
+     * @param id The state id to add
+     */
+    public void add (int id) {
+        if (size == buffer.length) {
+            grow();
+        }
+        buffer[(head + size) % buffer.length] = id;
+        size++;
+    }
+
+    /**
+     * Removes and returns the state id at the front of the queue.
+     *
+     * @return The state id at the front of the queue
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int poll () {
+        if (size == 0) {
+            throw new NoSuchElementException("Frontier is empty");
+        }
+        int result = buffer[head];
+        head = (head + 1) % buffer.length;
+        size--;
+        return result;
+    }
+
+    /**
+     * @return Whether or not the queue is empty
+     */
+    public boolean isEmpty () {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of state ids in the queue
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * Removes every state id from the queue, keeping its buffer.
+     */
+    public void clear () {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Doubles the buffer, unwrapping its contents to start at index 0.
+     */
+    private void grow () {
+        int[] larger = new int[buffer.length * 2];
+        for (int i = 0; i < size; i++) {
+            larger[i] = buffer[(head + i) % buffer.length];
+        }
+        buffer = larger;
+        head = 0;
+    }
+
+}
@@ -0,0 +1,376 @@
+// package pathfinder.informed;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Maze Pathfinding algorithm that implements Anytime Repairing A* (ARA*). A
+ * first path is found quickly by a weighted A* search, whose frontier is
+ * ordered by f(n) = g(n) + w * h(n) with w > 1, and so costs at most w times
+ * the optimal. The weight is then lowered step by step toward 1, each time
+ * reusing the previous search's work: only states whose cost has improved since
+ * they were expanded are expanded again. Every cheaper path found is reported
+ * to a SolutionListener, and the best path found by the deadline is returned;
+ * if the search reaches w = 1 first, that path is optimal.
+ *
+ * The cost bound only holds for a consistent Heuristic, which the MazeProblem
+ * itself and LandmarkHeuristic both are.
+ */
+public class AnytimePathfinder {
+
+    /**
+     * Weight on the heuristic of the first search.
+     */
+    public static final double DEFAULT_INITIAL_WEIGHT = 3.0;
+
+    /**
+     * Amount the weight is lowered by after each search.
+     */
+    public static final double WEIGHT_STEP = 0.5;
+
+    /**
+     * Time SearchMode.ANYTIME gives each solve to tighten its first path.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofMillis(100);
+
+    // Expansions between checks of the deadline, so that the clock is not read
+    // on every one
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+
+    // Deadline of the first search of each leg, which always runs to completion
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * the cheapest found within the given time
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to
+     * @param MazeProblem representing maze to search for state in
+     * @param Duration to spend tightening the first path found
+     * @param SolutionListener notified of each cheaper path found
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public static ArrayList<String> goFromTo(MazeState startState, MazeState endState, MazeProblem problem, Duration timeout, SolutionListener solutions) {
+        return goFromTo(startState, endState, problem, problem, DEFAULT_INITIAL_WEIGHT, timeout, SearchListener.NONE, solutions);
+    }
+
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * the cheapest found within the given time. The first path is always found,
+     * however long that takes; if the second state is a goal, the path may end
+     * at any goal.
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to
+     * @param MazeProblem representing maze to search for state in
+     * @param Heuristic estimating the remaining cost; must be consistent
+     * @param initialWeight Weight on the heuristic of the first search, at least 1
+     * @param Duration to spend tightening the first path found
+     * @param SearchListener notified of each expansion, enqueue and path found
+     * @param SolutionListener notified of each cheaper path found
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public static ArrayList<String> goFromTo(MazeState startState, MazeState endState, MazeProblem problem, Heuristic heuristic,
+                                             double initialWeight, Duration timeout, SearchListener listener, SolutionListener solutions) {
+        if (!problem.canReach(startState, endState)) {
+            return null;
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        return run(new Search[] { new Search(problem, heuristic, listener, startState, endState, initialWeight) }, deadline, solutions);
+    }
+
+    /**
+     * Given a MazeProblem, returns a solution to the problem as a sequence of actions
+     * that leads from the initial state, through the key, to a goal, using ARA* for
+     * both legs and the cheapest paths found for each within the given time.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param timeout Time to spend tightening the first solution found
+     * @param solutions A SolutionListener notified of each cheaper solution found
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve(MazeProblem problem, Duration timeout, SolutionListener solutions) {
+        return solve(problem, problem, DEFAULT_INITIAL_WEIGHT, timeout, SearchListener.NONE, solutions);
+    }
+
+    /**
+     * Given a MazeProblem, returns a solution to the problem as a sequence of actions
+     * that leads from the initial state, through the key, to a goal, as in
+     * solve(problem, timeout, solutions). Both legs share the deadline, and the leg
+     * with the loosest bound is always the next to be tightened; a solution's bound
+     * is relative to the cheapest route through the key and then the nearest goal.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param heuristic The Heuristic estimating the remaining cost; must be consistent
+     * @param initialWeight Weight on the heuristic of the first searches, at least 1
+     * @param timeout Time to spend tightening the first solution found
+     * @param listener A SearchListener notified of each expansion, enqueue and path found
+     * @param solutions A SolutionListener notified of each cheaper solution found
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve(MazeProblem problem, Heuristic heuristic, double initialWeight,
+                                          Duration timeout, SearchListener listener, SolutionListener solutions) {
+        if (!Pathfinder.isSolvable(problem)) {
+            return null;
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        MazeState goal = problem.GOAL_STATES.get(0);
+        Search[] legs = (problem.KEY_STATE == null)
+            ? new Search[] { new Search(problem, heuristic, listener, problem.INITIAL_STATE, goal, initialWeight) }
+            : new Search[] { new Search(problem, heuristic, listener, problem.INITIAL_STATE, problem.KEY_STATE, initialWeight),
+                             new Search(problem, heuristic, listener, problem.KEY_STATE, goal, initialWeight) };
+        return run(legs, deadline, solutions);
+    }
+
+    /**
+     * Finds a first path for every leg, then keeps lowering the weight of the leg
+     * with the loosest bound until every leg is optimal or the deadline passes,
+     * reporting the joined path whenever it gets cheaper.
+     *
+     * @return The cheapest joined path found, or null if some leg has none
+     */
+    private static ArrayList<String> run(Search[] legs, long deadline, SolutionListener solutions) {
+        for (Search leg : legs) {
+            leg.improvePath(NO_DEADLINE);
+            if (leg.targetId == -1) {
+                return null;
+            }
+        }
+        ArrayList<String> best = join(legs);
+        int bestCost = pathCost(legs);
+        solutions.onSolution(new ArrayList<>(best), bestCost, bound(legs));
+
+        while (true) {
+            Search loosest = null;
+            for (Search leg : legs) {
+                if (leg.weight > 1 && (loosest == null || leg.weight > loosest.weight)) {
+                    loosest = leg;
+                }
+            }
+            if (loosest == null) {
+                return best;
+            }
+            loosest.tighten(Math.max(1.0, loosest.weight - WEIGHT_STEP));
+            if (!loosest.improvePath(deadline)) {
+                return best;
+            }
+            int cost = pathCost(legs);
+            if (cost < bestCost) {
+                best = join(legs);
+                bestCost = cost;
+                solutions.onSolution(new ArrayList<>(best), bestCost, bound(legs));
+            }
+        }
+    }
+
+    private static ArrayList<String> join(Search[] legs) {
+        ArrayList<String> result = legs[0].path();
+        for (int i = 1; i < legs.length; i++) {
+            result.addAll(legs[i].path());
+        }
+        return result;
+    }
+
+    private static int pathCost(Search[] legs) {
+        int result = 0;
+        for (Search leg : legs) {
+            result += leg.pathCost();
+        }
+        return result;
+    }
+
+    /**
+     * @return The largest weight of any leg, which bounds the suboptimality of the
+     * joined path
+     */
+    private static double bound(Search[] legs) {
+        double result = 1;
+        for (Search leg : legs) {
+            result = Math.max(result, leg.weight);
+        }
+        return result;
+    }
+
+    /**
+     * State of one ARA* search, kept between its successive weighted searches: the
+     * best known path cost of every state, the frontier, and the states that are
+     * inconsistent, i.e., whose cost has improved since they were expanded.
+     */
+    private static class Search {
+
+        private final MazeProblem problem;
+        private final Heuristic heuristic;
+        private final SearchListener listener;
+        private final boolean listening;
+        private final int endId;
+        private final boolean lookingForGoal;
+        private final SearchPriorityQueue frontier;
+        private final StateSet visitedStates, inconsistentStates;
+        // The search tree, indexed by state id, and each state's estimate, or -1
+        // if not yet computed
+        private final int[] parents, pathCosts, estimates;
+        private final byte[] moves;
+        // Inconsistent states in the order found; also used to re-key the frontier
+        private final int[] pending;
+        private int pendingCount, expansions;
+        private final int[] neighbors = new int[4];
+        private final byte[] actions = new byte[4];
+
+        double weight;
+        // Best target reached so far, or -1 if none has been
+        int targetId = -1;
+
+        Search (MazeProblem problem, Heuristic heuristic, SearchListener listener, MazeState startState, MazeState endState, double weight) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Weight must be at least 1: " + weight);
+            }
+            int size = problem.getRows() * problem.getCols();
+            this.problem = problem;
+            this.heuristic = heuristic;
+            this.listener = listener;
+            this.listening = listener != SearchListener.NONE;
+            this.endId = problem.getStateId(endState);
+            this.lookingForGoal = problem.isGoal(endState);
+            this.weight = weight;
+            this.frontier = new SearchPriorityQueue(size);
+            this.visitedStates = new StateSet(problem);
+            this.inconsistentStates = new StateSet(problem);
+            this.parents = new int[size];
+            this.pathCosts = new int[size];
+            this.estimates = new int[size];
+            this.moves = new byte[size];
+            this.pending = new int[size];
+            Arrays.fill(pathCosts, Integer.MAX_VALUE);
+            Arrays.fill(estimates, -1);
+
+            int startId = problem.getStateId(startState);
+            pathCosts[startId] = 0;
+            parents[startId] = -1;
+            if (isTarget(startId)) {
+                targetId = startId;
+            }
+            if (estimate(startId) != DistanceTable.UNREACHABLE) {
+                frontier.add(startId, priority(startId));
+                listener.onEnqueue(startState, 0, priority(startId));
+            }
+        }
+
+        /**
+         * Expands states in order of g(n) + w * h(n) until no state on the frontier
+         * can lead to a cheaper path to the target than the best found.
+         *
+         * @param deadline System.nanoTime by which to stop, or NO_DEADLINE
+         * @return false if the deadline passed before the search was done
+         */
+        boolean improvePath (long deadline) {
+            while (!frontier.isEmpty() && bestCost() > frontier.getPriority(frontier.peek())) {
+                if (deadline != NO_DEADLINE && ++expansions % DEADLINE_CHECK_INTERVAL == 0
+                        && System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                int currentId = frontier.poll();
+                visitedStates.add(currentId);
+                if (listening) {
+                    listener.onExpand(problem.getState(currentId), pathCosts[currentId]);
+                }
+
+                int count = problem.expand(currentId, neighbors, actions);
+                for (int i = 0; i < count; i++) {
+                    int nextId = neighbors[i];
+                    if (estimate(nextId) == DistanceTable.UNREACHABLE) {
+                        continue;
+                    }
+                    int pathCost = pathCosts[currentId] + problem.getCost(nextId);
+                    if (pathCost >= pathCosts[nextId]) {
+                        continue;
+                    }
+                    pathCosts[nextId] = pathCost;
+                    parents[nextId] = currentId;
+                    moves[nextId] = actions[i];
+                    if (isTarget(nextId) && pathCost < bestCost()) {
+                        targetId = nextId;
+                    }
+                    if (!visitedStates.contains(nextId)) {
+                        int priority = priority(nextId);
+                        if (frontier.contains(nextId)) {
+                            frontier.update(nextId, priority);
+                        } else {
+                            frontier.add(nextId, priority);
+                        }
+                        if (listening) {
+                            listener.onEnqueue(problem.getState(nextId), pathCost, priority);
+                        }
+                    } else if (inconsistentStates.add(nextId)) {
+                        // Already expanded at its old cost; expand it again in the
+                        // next search rather than this one
+                        pending[pendingCount++] = nextId;
+                    }
+                }
+            }
+            if (targetId != -1) {
+                if (listening) {
+                    listener.onGoal(problem.getState(targetId), pathCosts[targetId]);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Lowers the weight for the next search: the inconsistent states join the
+         * frontier, every state on it is re-keyed, and no state is expanded yet.
+         */
+        void tighten (double newWeight) {
+            weight = newWeight;
+            // The frontier and the inconsistent states are disjoint, since only
+            // expanded states are ever inconsistent
+            while (!frontier.isEmpty()) {
+                pending[pendingCount++] = frontier.poll();
+            }
+            for (int i = 0; i < pendingCount; i++) {
+                frontier.add(pending[i], priority(pending[i]));
+            }
+            pendingCount = 0;
+            inconsistentStates.clear();
+            visitedStates.clear();
+        }
+
+        ArrayList<String> path () {
+            return Pathfinder.buildPath(parents, moves, targetId);
+        }
+
+        /**
+         * @return The cost of the path to the best target through the search tree,
+         * which may be lower than its recorded cost if states along it have since
+         * been improved
+         */
+        int pathCost () {
+            int result = 0;
+            for (int id = targetId; parents[id] != -1; id = parents[id]) {
+                result += problem.getCost(id);
+            }
+            return result;
+        }
+
+        private int bestCost () {
+            return (targetId == -1) ? Integer.MAX_VALUE : pathCosts[targetId];
+        }
+
+        private int priority (int stateId) {
+            return pathCosts[stateId] + (int) (weight * estimate(stateId));
+        }
+
+        private int estimate (int stateId) {
+            if (estimates[stateId] == -1) {
+                estimates[stateId] = (lookingForGoal) ? heuristic.distanceToGoal(stateId) : heuristic.estimateDistance(stateId, endId);
+            }
+            return estimates[stateId];
+        }
+
+        private boolean isTarget (int stateId) {
+            return (lookingForGoal) ? problem.isGoal(stateId) : stateId == endId;
+        }
+
+    }
+
+}
@@ -0,0 +1,266 @@
+// package pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Maze Pathfinding algorithm that implements bidirectional A*: one search runs
+ * forward from the start while another runs backward from the target, and the
+ * path is assembled where they meet. Since each search only has to cover about
+ * half the distance, far fewer states are expanded on large open mazes.
+ */
+public class BidirectionalPathfinder {
+
+    /**
+     * Returns list of steps to take from first input state to second input state
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to
+     * @param MazeProblem representing maze to search for state in
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public static ArrayList<String> goFromTo(MazeState startState, MazeState endState, MazeProblem problem) {
+        return goFromTo(startState, endState, problem, SearchListener.NONE);
+    }
+
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * reporting the progress of both searches to the given listener. If the second
+     * state is a goal, the path may end at any goal.
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to
+     * @param MazeProblem representing maze to search for state in
+     * @param SearchListener notified of each expansion, enqueue and the goal
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public static ArrayList<String> goFromTo(MazeState startState, MazeState endState, MazeProblem problem, SearchListener listener) {
+        if (!problem.canReach(startState, endState)) {
+            return null;
+        }
+        int size = problem.getRows() * problem.getCols();
+        int startId = problem.getStateId(startState), endId = problem.getStateId(endState);
+        boolean lookingForGoal = problem.isGoal(endState);
+
+        // Forward search from the start, estimating the cost to the target
+        Direction forward = new Direction(problem, size, listener, false) {
+            int estimate (int stateId) {
+                return (lookingForGoal) ? problem.distanceToGoal(stateId) : problem.estimateDistance(stateId, endId);
+            }
+        };
+        // Backward search from the target(s), estimating the cost from the start
+        Direction backward = new Direction(problem, size, listener, true) {
+            int estimate (int stateId) {
+                return problem.distance(startId, stateId);
+            }
+        };
+        forward.other = backward;
+        backward.other = forward;
+
+        if (!forward.seed(startId)) {
+            return null;
+        }
+        if (lookingForGoal) {
+            for (MazeState goal : problem.GOAL_STATES) {
+                backward.seed(problem.getStateId(goal));
+            }
+        } else {
+            backward.seed(endId);
+        }
+        forward.checkMeeting(startId);
+
+        // Expand the smaller frontier each time, until neither search can find a
+        // path cheaper than the best meeting found so far
+        while (!forward.frontier.isEmpty() && !backward.frontier.isEmpty()) {
+            int bound = Math.max(forward.minPriority(), backward.minPriority());
+            if (forward.bestCost <= bound) {
+                break;
+            }
+            if (forward.frontier.size() <= backward.frontier.size()) {
+                forward.expandNext();
+            } else {
+                backward.expandNext();
+            }
+        }
+        if (forward.meetingId == -1) {
+            return null;
+        }
+
+        int meetingId = forward.meetingId;
+        if ( listener != SearchListener.NONE ) {
+            listener.onGoal( problem.getState(meetingId), forward.bestCost );
+        }
+        ArrayList<String> result = Pathfinder.buildPath(forward.parents, forward.moves, meetingId);
+        // Backward parents point toward the target, and backward moves lead from a
+        // state to its parent
+        for (int id = meetingId; backward.parents[id] != -1; id = backward.parents[id]) {
+            result.add(MazeProblem.getAction(backward.moves[id]));
+        }
+        return result;
+    }
+
+    /**
+     * Given a MazeProblem, returns a solution to the problem as a sequence of actions
+     * that leads from the initial state, through the key, to a goal, using
+     * bidirectional A* for both legs.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param listener A SearchListener notified of each expansion, enqueue and goal
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve(MazeProblem problem, SearchListener listener) {
+        if (problem.KEY_STATE == null) {
+            return goFromTo( problem.INITIAL_STATE, problem.GOAL_STATES.get(0), problem, listener );
+        }
+        ArrayList<String> keyPath = goFromTo( problem.INITIAL_STATE, problem.KEY_STATE, problem, listener );
+        if (keyPath == null) {
+            return null;
+        }
+        ArrayList<String> goalPath = goFromTo( problem.KEY_STATE, problem.GOAL_STATES.get(0), problem, listener );
+        if (goalPath == null) {
+            return null;
+        }
+        keyPath.addAll( goalPath );
+        return keyPath;
+    }
+
+    /**
+     * One direction of the bidirectional search, with its own frontier, closed set
+     * and best known path costs. The best meeting found so far is shared by both
+     * directions through bestCost and meetingId, which are kept in sync.
+     */
+    private static abstract class Direction {
+
+        final MazeProblem problem;
+        final SearchListener listener;
+        final boolean listening;
+        final SearchPriorityQueue frontier;
+        final int[] parents, pathCosts;
+        final byte[] moves;
+        final StateSet visitedStates;
+        final int[] neighbors = new int[4];
+        final byte[] actions = new byte[4];
+        final boolean reversed;
+        Direction other;
+        int bestCost = Integer.MAX_VALUE, meetingId = -1;
+
+        Direction (MazeProblem problem, int size, SearchListener listener, boolean reversed) {
+            this.problem = problem;
+            this.listener = listener;
+            this.listening = listener != SearchListener.NONE;
+            this.reversed = reversed;
+            this.frontier = new SearchPriorityQueue(size);
+            this.parents = new int[size];
+            this.pathCosts = new int[size];
+            this.moves = new byte[size];
+            this.visitedStates = new StateSet(problem);
+            Arrays.fill(pathCosts, Integer.MAX_VALUE);
+        }
+
+        /**
+         * @return Estimated cost between the given state and this direction's far end
+         */
+        abstract int estimate (int stateId);
+
+        /**
+         * Returns the cost of the step this direction takes from one state to the
+         * next; stepping backward from v to u costs what stepping from u onto v would.
+         */
+        int stepCost (int fromId, int toId) {
+            return problem.getCost((reversed) ? fromId : toId);
+        }
+
+        /**
+         * Adds a root state to this direction's frontier.
+         *
+         * @return false if the state is known not to be connected to the far end
+         */
+        boolean seed (int stateId) {
+            int estimate = estimate(stateId);
+            if (estimate == DistanceTable.UNREACHABLE || pathCosts[stateId] == 0) {
+                return false;
+            }
+            pathCosts[stateId] = 0;
+            parents[stateId] = -1;
+            frontier.add(stateId, estimate);
+            if (listening) {
+                listener.onEnqueue(problem.getState(stateId), 0, estimate);
+            }
+            return true;
+        }
+
+        int minPriority () {
+            return frontier.getPriority(frontier.peek());
+        }
+
+        /**
+         * Expands the best state on this direction's frontier, relaxing its
+         * neighbors and recording any meeting with the other direction.
+         */
+        void expandNext () {
+            int currentId = frontier.poll();
+            visitedStates.add(currentId);
+            if (listening) {
+                listener.onExpand(problem.getState(currentId), pathCosts[currentId]);
+            }
+
+            int count = problem.expand(currentId, neighbors, actions);
+            for (int i = 0; i < count; i++) {
+                int nextId = neighbors[i];
+                if (visitedStates.contains(nextId)) {
+                    continue;
+                }
+                int estimate = estimate(nextId);
+                if (estimate == DistanceTable.UNREACHABLE) {
+                    continue;
+                }
+                int pathCost = pathCosts[currentId] + stepCost(currentId, nextId);
+                if (pathCost >= pathCosts[nextId]) {
+                    continue;
+                }
+                int priority = pathCost + estimate;
+                if (priority >= bestCost) {
+                    // Cannot lead to a cheaper path than the best meeting found so far
+                    continue;
+                }
+                if (frontier.contains(nextId)) {
+                    frontier.decreaseKey(nextId, priority);
+                } else {
+                    frontier.add(nextId, priority);
+                }
+                pathCosts[nextId] = pathCost;
+                parents[nextId] = currentId;
+                moves[nextId] = moveFor(actions[i]);
+                if (listening) {
+                    listener.onEnqueue(problem.getState(nextId), pathCost, priority);
+                }
+                checkMeeting(nextId);
+            }
+        }
+
+        /**
+         * Returns the direction ordinal a path takes for a step this direction makes
+         * with the given direction ordinal: the same forward, and its opposite
+         * backward, since backward steps are walked in reverse.
+         */
+        byte moveFor (byte direction) {
+            // Direction ordinals pair up opposites as (UP, DOWN) and (LEFT, RIGHT)
+            return (reversed) ? (byte) (direction ^ 1) : direction;
+        }
+
+        /**
+         * Records the given state as the best meeting point if both directions
+         * have reached it and the combined path through it is the cheapest yet.
+         */
+        void checkMeeting (int stateId) {
+            if (other.pathCosts[stateId] == Integer.MAX_VALUE || pathCosts[stateId] == Integer.MAX_VALUE) {
+                return;
+            }
+            int cost = pathCosts[stateId] + other.pathCosts[stateId];
+            if (cost < bestCost) {
+                bestCost = other.bestCost = cost;
+                meetingId = other.meetingId = stateId;
+            }
+        }
+
+    }
+
+}
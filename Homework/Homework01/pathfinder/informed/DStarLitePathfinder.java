@@ -0,0 +1,232 @@
+// package pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Maze Pathfinding algorithm that implements D* Lite, an incremental search for
+ * mazes whose tiles change between queries. The search runs backward from the
+ * target, keeping for every state its cost-to-target g(n) and a one-step
+ * lookahead rhs(n); after MazeProblem.setTile calls, only the states whose costs
+ * the change actually affects are re-expanded, so a small edit costs a fraction
+ * of a fresh search. The start may also move along the path between replans.
+ * <p>
+ * Frontier keys use only the first component of D* Lite's (k1, k2) key, since
+ * SearchPriorityQueue orders by a single int; the loop therefore keeps going
+ * while the top key is no greater than (rather than less than) the start's,
+ * which also settles any ties that the second component would have ordered.
+ */
+public class DStarLitePathfinder implements TileListener {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeProblem problem;
+    private final SearchListener listener;
+    private final boolean listening;
+    private final SearchPriorityQueue frontier;
+    private final StateSet targets;
+    private final int[] g, rhs;
+    // Neighbor buffers: one for the state being expanded or changed, and one for
+    // updateVertex and plan, which run while the first is being iterated
+    private final int[] adjacent = new int[4], neighbors = new int[4];
+    private final byte[] adjacentActions = new byte[4], actions = new byte[4];
+    private int startId, keyModifier;
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new DStarLitePathfinder for paths from the given start to the
+     * given end, and registers it to be notified of the maze's tile changes.
+     *
+     * @param startState MazeState representing state where to navigate from
+     * @param endState MazeState representing state needed to navigate to; if it
+     * is a goal, paths may end at any goal
+     * @param problem MazeProblem representing maze to search for state in
+     * @param listener SearchListener notified of each expansion and the goal
+     */
+    DStarLitePathfinder (MazeState startState, MazeState endState, MazeProblem problem, SearchListener listener) {
+        int size = problem.getRows() * problem.getCols();
+        this.problem = problem;
+        this.listener = listener;
+        this.listening = listener != SearchListener.NONE;
+        this.frontier = new SearchPriorityQueue(size);
+        this.targets = new StateSet(problem);
+        this.g = new int[size];
+        this.rhs = new int[size];
+        this.startId = problem.getStateId(startState);
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+
+        if (problem.isGoal(endState)) {
+            for (MazeState goal : problem.GOAL_STATES) {
+                targets.add(problem.getStateId(goal));
+            }
+        } else {
+            targets.add(problem.getStateId(endState));
+        }
+        for (int id = 0; id < size; id++) {
+            if (targets.contains(id)) {
+                rhs[id] = 0;
+                frontier.add(id, key(id));
+            }
+        }
+        problem.addTileListener(this);
+    }
+
+    /**
+     * Constructs a new DStarLitePathfinder as above that reports to no listener.
+     */
+    DStarLitePathfinder (MazeState startState, MazeState endState, MazeProblem problem) {
+        this(startState, endState, problem, SearchListener.NONE);
+    }
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Returns list of steps to take from the current start to the end, repairing
+     * the previous plan to account for every tile changed since.
+     *
+     * @return ArrayList<String> path leading to the end, or null if there is none
+     */
+    public ArrayList<String> plan () {
+        computeShortestPath();
+        if (g[startId] == INFINITY) {
+            return null;
+        }
+
+        // Descend from the start, always stepping onto the neighbor through which
+        // the remaining cost is least
+        ArrayList<String> result = new ArrayList<>();
+        int currentId = startId;
+        while (!targets.contains(currentId)) {
+            int count = problem.expand(currentId, neighbors, actions);
+            int bestId = -1, bestCost = INFINITY;
+            byte bestAction = 0;
+            for (int i = 0; i < count; i++) {
+                int cost = pathCost(neighbors[i]);
+                if (cost < bestCost) {
+                    bestId = neighbors[i];
+                    bestCost = cost;
+                    bestAction = actions[i];
+                }
+            }
+            result.add(MazeProblem.getAction(bestAction));
+            currentId = bestId;
+        }
+        if ( listening ) {
+            listener.onGoal( problem.getState(currentId), g[startId] );
+        }
+        return result;
+    }
+
+    /**
+     * Moves the start of later plans to the given state, e.g. once the agent
+     * following the last plan has taken some of its steps.
+     *
+     * @param startState MazeState representing the new state to navigate from
+     */
+    public void moveTo (MazeState startState) {
+        int newStartId = problem.getStateId(startState);
+        keyModifier += manhattan(startId, newStartId);
+        startId = newStartId;
+    }
+
+    /**
+     * Stops this pathfinder from listening for tile changes; it should not be
+     * used afterward.
+     */
+    public void close () {
+        problem.removeTileListener(this);
+    }
+
+    /**
+     * Marks the changed state, and every neighbor that may step onto it, for
+     * repair by the next plan.
+     */
+    @Override
+    public void onTileChanged (int stateId, byte oldTile, byte newTile) {
+        updateVertex(stateId);
+        int count = problem.expand(stateId, adjacent, adjacentActions);
+        for (int i = 0; i < count; i++) {
+            updateVertex(adjacent[i]);
+        }
+    }
+
+    /**
+     * Expands states in order of key until the start is consistent and no state
+     * left on the frontier could lower its cost.
+     */
+    private void computeShortestPath () {
+        while (!frontier.isEmpty() && (frontier.getPriority(frontier.peek()) <= key(startId) || rhs[startId] != g[startId])) {
+            int currentId = frontier.peek();
+            int oldKey = frontier.getPriority(currentId), newKey = key(currentId);
+            if (oldKey < newKey) {
+                // Stale key left from before the start last moved
+                frontier.update(currentId, newKey);
+                continue;
+            }
+            frontier.poll();
+            if ( listening ) {
+                listener.onExpand( problem.getState(currentId), Math.min(g[currentId], rhs[currentId]) );
+            }
+
+            if (g[currentId] > rhs[currentId]) {
+                g[currentId] = rhs[currentId];
+            } else {
+                g[currentId] = INFINITY;
+                updateVertex(currentId);
+            }
+            int count = problem.expand(currentId, adjacent, adjacentActions);
+            for (int i = 0; i < count; i++) {
+                updateVertex(adjacent[i]);
+            }
+        }
+    }
+
+    /**
+     * Recomputes rhs(n) for the given state from its neighbors, and puts it on the
+     * frontier if and only if it is now inconsistent (g(n) != rhs(n)).
+     */
+    private void updateVertex (int stateId) {
+        if (!targets.contains(stateId)) {
+            int best = INFINITY;
+            if (problem.getCost(stateId) != INFINITY) {
+                int count = problem.expand(stateId, neighbors, actions);
+                for (int i = 0; i < count; i++) {
+                    best = Math.min(best, pathCost(neighbors[i]));
+                }
+            }
+            rhs[stateId] = best;
+        }
+        frontier.remove(stateId);
+        if (g[stateId] != rhs[stateId]) {
+            frontier.add(stateId, key(stateId));
+        }
+    }
+
+    /**
+     * @return The cost of stepping onto the given state and then following its
+     * cheapest known path to a target, or INFINITY if it has none
+     */
+    private int pathCost (int stateId) {
+        return (g[stateId] == INFINITY) ? INFINITY : problem.getCost(stateId) + g[stateId];
+    }
+
+    /**
+     * @return The first component of the state's D* Lite key:
+     * min(g(n), rhs(n)) + h(start, n) + the accumulated start movement
+     */
+    private int key (int stateId) {
+        int cost = Math.min(g[stateId], rhs[stateId]);
+        return (cost == INFINITY) ? INFINITY : cost + manhattan(startId, stateId) + keyModifier;
+    }
+
+    private int manhattan (int fromId, int toId) {
+        int cols = problem.getCols();
+        return Math.abs(fromId % cols - toId % cols) + Math.abs(fromId / cols - toId / cols);
+    }
+
+}
@@ -0,0 +1,132 @@
+// package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Table of the exact cost of the cheapest path from every state of a MazeProblem
+ * to the nearest of a set of target states, computed once by a reverse Dijkstra
+ * search out from the targets. Used as a perfect, O(1) heuristic when the same
+ * maze is searched repeatedly. The table also records, for every state, the
+ * first step of its cheapest path, so that the path from any source to the
+ * targets can be read off without another search.
+ */
+public class DistanceTable {
+
+    /**
+     * Distance recorded for states from which no target can be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int[] distances;
+    private final byte[] nextActions;
+    private final int cols;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs the DistanceTable for the given targets by running a reverse
+     * Dijkstra search from all of them at once. The cost of a path is the sum of
+     * MazeProblem.getCost over every state stepped onto after the first.
+     *
+     * @param problem The MazeProblem whose states are measured
+     * @param targetIds State ids of the targets, each at distance 0
+     */
+    DistanceTable (MazeProblem problem, int... targetIds) {
+        int size = problem.getRows() * problem.getCols();
+        this.cols = problem.getCols();
+        this.distances = new int[size];
+        this.nextActions = new byte[size];
+        Arrays.fill(distances, UNREACHABLE);
+
+        SearchPriorityQueue frontier = new SearchPriorityQueue(size);
+        StateSet settled = new StateSet(problem);
+        int[] neighbors = new int[4];
+        byte[] actions = new byte[4];
+        for (int target : targetIds) {
+            if (distances[target] != 0) {
+                distances[target] = 0;
+                frontier.add(target, 0);
+            }
+        }
+
+        while (!frontier.isEmpty()) {
+            int current = frontier.poll();
+            settled.add(current);
+
+            // Every neighbor can step onto current (moves are symmetric), paying
+            // current's cost to do so; its first step is back the way we came
+            int stepCost = problem.getCost(current);
+            int count = problem.expand(current, neighbors, actions);
+            for (int i = 0; i < count; i++) {
+                int next = neighbors[i];
+                if (settled.contains(next)) {
+                    continue;
+                }
+                int distance = distances[current] + stepCost;
+                if (distances[next] == UNREACHABLE) {
+                    distances[next] = distance;
+                    nextActions[next] = (byte) (actions[i] ^ 1);
+                    frontier.add(next, distance);
+                } else if (frontier.decreaseKey(next, distance)) {
+                    distances[next] = distance;
+                    nextActions[next] = (byte) (actions[i] ^ 1);
+                }
+            }
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Returns the cost of the cheapest path from the given state to a target.
+     *
+     * @param stateId id of the state to look up
+     * @return The cost of the cheapest path, or UNREACHABLE if there is none
+     */
+    public int get (int stateId) {
+        return distances[stateId];
+    }
+
+    /**
+     * Returns the cost of the cheapest path from the given state to a target.
+     *
+     * @param state A MazeState (col, row) to look up
+     * @return The cost of the cheapest path, or UNREACHABLE if there is none
+     */
+    public int get (MazeState state) {
+        return distances[state.row * cols + state.col];
+    }
+
+    /**
+     * Returns a cheapest path from the given state to a target, following the
+     * first step recorded for each state along the way.
+     *
+     * @param state A MazeState (col, row) to start from
+     * @return ArrayList<String> path leading to the nearest target, or null if
+     * there is none
+     */
+    public ArrayList<String> pathFrom (MazeState state) {
+        int stateId = state.row * cols + state.col;
+        if (distances[stateId] == UNREACHABLE) {
+            return null;
+        }
+        ArrayList<String> result = new ArrayList<>();
+        while (distances[stateId] != 0) {
+            byte direction = nextActions[stateId];
+            result.add(MazeProblem.getAction(direction));
+            switch (direction) {
+            case MazeProblem.UP:    stateId -= cols; break;
+            case MazeProblem.DOWN:  stateId += cols; break;
+            case MazeProblem.LEFT:  stateId--; break;
+            case MazeProblem.RIGHT: stateId++; break;
+            }
+        }
+        return result;
+    }
+
+}
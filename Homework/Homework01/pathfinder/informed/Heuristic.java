@@ -0,0 +1,33 @@
+// package pathfinder.informed;
+
+/**
+ * Estimate of the cost of the cheapest path between states of a MazeProblem,
+ * used to order an informed search's frontier. Implementations must never
+ * overestimate (i.e., be admissible) for the search to return cheapest paths.
+ * MazeProblem is itself the default Heuristic, estimating by Manhattan distance
+ * or by its precomputed distance tables; LandmarkHeuristic is a tighter one for
+ * mazes full of walls and corridors.
+ */
+public interface Heuristic {
+
+    /**
+     * Returns an estimate of the cost of a path from one state to a target state.
+     *
+     * @param stateId id of the state to start from
+     * @param targetId id of the target state
+     * @return int estimated cost, or DistanceTable.UNREACHABLE if the target is
+     * known to be unreachable from the state
+     */
+    int estimateDistance (int stateId, int targetId);
+
+    /**
+     * Returns an estimate of the cost of a path from the given state to the
+     * nearest goal state.
+     *
+     * @param stateId id of the state to start from
+     * @return int estimated cost, or DistanceTable.UNREACHABLE if no goal is
+     * known to be reachable from the state
+     */
+    int distanceToGoal (int stateId);
+
+}
@@ -0,0 +1,569 @@
+// package pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Maze Pathfinding algorithm that implements HPA* (hierarchical path-finding A*)
+ * for very large mazes. The grid is partitioned into square clusters; wherever
+ * two neighboring clusters share a run of open cells along their border, one or
+ * two entrances are placed across it, and the cost between every pair of
+ * entrances within a cluster is computed once and cached. A query searches this
+ * small abstract graph of entrances, then refines each abstract step with a
+ * search confined to a single cluster.
+ * <p>
+ * Paths found this way are valid but need not be optimal, since they must cross
+ * cluster borders at entrances; in practice they are within a few percent. The
+ * abstraction is built lazily, one cluster at a time as queries reach it, and a
+ * changed tile (see MazeProblem.setTile) invalidates only its own cluster, that
+ * cluster's borders and the neighbors sharing them.
+ */
+public class HierarchicalPathfinder implements TileListener {
+
+    /**
+     * Side length, in cells, of the clusters used by MazeProblem.getHierarchy.
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    // Border runs of open cells at least this long get an entrance at each end
+    // rather than a single one in the middle
+    private static final int MAX_ENTRANCE_WIDTH = 6;
+
+    // Abstract node ids standing for the start and end of a query; every other
+    // abstract node is identified by its cell's state id
+    private static final int START = -2, END = -1;
+
+    private static final int UNREACHABLE = DistanceTable.UNREACHABLE;
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeProblem problem;
+    private final int clusterSize, clustersX, clustersY, rows, cols;
+
+    // Per cluster: border transitions with the east and south neighbors, as
+    // (cell in this cluster, cell in neighbor) pairs, or null if not yet built
+    private final int[][] eastBorders, southBorders;
+
+    // Per cluster: entrance cells, each entrance's partners across the border,
+    // and the k x k matrix of costs between entrances; null if not yet built
+    private final int[][] nodeCells;
+    private final int[][][] nodePartners;
+    private final int[][] nodeCosts;
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new HierarchicalPathfinder over the given MazeProblem, and
+     * registers it to be notified of the maze's tile changes.
+     *
+     * @param problem MazeProblem representing maze to search
+     * @param clusterSize Side length of each cluster, in cells
+     */
+    HierarchicalPathfinder (MazeProblem problem, int clusterSize) {
+        this.problem = problem;
+        this.clusterSize = clusterSize;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        this.clustersX = (cols + clusterSize - 1) / clusterSize;
+        this.clustersY = (rows + clusterSize - 1) / clusterSize;
+        int clusters = clustersX * clustersY;
+        this.eastBorders = new int[clusters][];
+        this.southBorders = new int[clusters][];
+        this.nodeCells = new int[clusters][];
+        this.nodePartners = new int[clusters][][];
+        this.nodeCosts = new int[clusters][];
+        problem.addTileListener(this);
+    }
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Given a MazeProblem, returns a solution to the problem as a sequence of actions
+     * that leads from the initial state, through the key, to a goal, using the
+     * problem's hierarchy (see MazeProblem.getHierarchy) for both legs.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param listener A SearchListener notified of each abstract expansion and goal
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve(MazeProblem problem, SearchListener listener) {
+        HierarchicalPathfinder hierarchy = problem.getHierarchy();
+        if (problem.KEY_STATE == null) {
+            return hierarchy.goFromTo( problem.INITIAL_STATE, problem.GOAL_STATES.get(0), listener );
+        }
+        ArrayList<String> keyPath = hierarchy.goFromTo( problem.INITIAL_STATE, problem.KEY_STATE, listener );
+        if (keyPath == null) {
+            return null;
+        }
+        ArrayList<String> goalPath = hierarchy.goFromTo( problem.KEY_STATE, problem.GOAL_STATES.get(0), listener );
+        if (goalPath == null) {
+            return null;
+        }
+        keyPath.addAll( goalPath );
+        return keyPath;
+    }
+
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * found by searching the abstract graph of entrances and refining the result.
+     *
+     * @param startState MazeState representing state where to navigate from
+     * @param endState MazeState representing state needed to navigate to; if it
+     * is a goal, the path may end at any goal
+     * @param listener SearchListener notified of each abstract expansion and the goal
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public ArrayList<String> goFromTo (MazeState startState, MazeState endState, SearchListener listener) {
+        if (!problem.canReach(startState, endState)) {
+            return null;
+        }
+        int startId = problem.getStateId(startState);
+        int[] targets;
+        if (problem.isGoal(endState)) {
+            targets = new int[problem.GOAL_STATES.size()];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = problem.getStateId(problem.GOAL_STATES.get(i));
+            }
+        } else {
+            targets = new int[] { problem.getStateId(endState) };
+        }
+
+        // Local searches connecting the start to its cluster's entrances, and
+        // every target cluster's entrances to its targets
+        int startCluster = clusterOf(startId);
+        ensureCluster(startCluster);
+        LocalTree startTree = new LocalTree(startCluster, new int[] { startId }, false);
+        Map<Integer, LocalTree> targetTrees = new HashMap<>();
+        for (int target : targets) {
+            int cluster = clusterOf(target);
+            if (!targetTrees.containsKey(cluster)) {
+                ensureCluster(cluster);
+                int[] inCluster = Arrays.stream(targets).filter(id -> clusterOf(id) == cluster).toArray();
+                targetTrees.put(cluster, new LocalTree(cluster, inCluster, true));
+            }
+        }
+
+        AbstractSearch search = new AbstractSearch(targets, startTree, targetTrees, listener);
+        List<Integer> abstractPath = search.run();
+        if (abstractPath == null) {
+            return null;
+        }
+
+        // Refine each abstract step into the moves it stands for
+        ArrayList<String> result = new ArrayList<>();
+        for (int i = 1; i < abstractPath.size(); i++) {
+            int from = abstractPath.get(i - 1), to = abstractPath.get(i);
+            if (to == END) {
+                int fromCell = (from == START) ? startId : from;
+                targetTrees.get(clusterOf(fromCell)).appendPathFrom(fromCell, result);
+            } else if (from == START) {
+                startTree.appendPathTo(to, result);
+            } else if (clusterOf(from) != clusterOf(to)) {
+                result.add(MazeProblem.getAction((byte) directionBetween(from, to)));
+            } else {
+                new LocalTree(clusterOf(from), new int[] { from }, false).appendPathTo(to, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Invalidates the cluster holding the changed state, its borders, and the
+     * neighboring clusters that share them.
+     */
+    @Override
+    public void onTileChanged (int stateId, byte oldTile, byte newTile) {
+        int cluster = clusterOf(stateId);
+        int cx = cluster % clustersX, cy = cluster / clustersX;
+        eastBorders[cluster] = southBorders[cluster] = null;
+        nodeCells[cluster] = null;
+        if (cx > 0) {
+            eastBorders[cluster - 1] = null;
+            nodeCells[cluster - 1] = null;
+        }
+        if (cy > 0) {
+            southBorders[cluster - clustersX] = null;
+            nodeCells[cluster - clustersX] = null;
+        }
+        if (cx < clustersX - 1) {
+            nodeCells[cluster + 1] = null;
+        }
+        if (cy < clustersY - 1) {
+            nodeCells[cluster + clustersX] = null;
+        }
+    }
+
+    /**
+     * Stops this hierarchy from listening for tile changes; it should not be
+     * used afterward.
+     */
+    public void close () {
+        problem.removeTileListener(this);
+    }
+
+    /**
+     * @return The number of clusters whose entrances and costs are currently built
+     */
+    public int getBuiltClusters () {
+        int result = 0;
+        for (int[] cells : nodeCells) {
+            if (cells != null) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private int clusterOf (int stateId) {
+        return (stateId / cols / clusterSize) * clustersX + (stateId % cols) / clusterSize;
+    }
+
+    private int directionBetween (int fromId, int toId) {
+        int delta = toId - fromId;
+        return (delta == -cols) ? MazeProblem.UP
+             : (delta == cols)  ? MazeProblem.DOWN
+             : (delta == -1)    ? MazeProblem.LEFT
+             : MazeProblem.RIGHT;
+    }
+
+    private int step (int stateId, int direction) {
+        switch (direction) {
+        case MazeProblem.UP:   return stateId - cols;
+        case MazeProblem.DOWN: return stateId + cols;
+        case MazeProblem.LEFT: return stateId - 1;
+        default:               return stateId + 1;
+        }
+    }
+
+    /**
+     * Builds the entrances of the given cluster and the costs between them, if
+     * they are not already built.
+     */
+    private void ensureCluster (int cluster) {
+        if (nodeCells[cluster] != null) {
+            return;
+        }
+        int cx = cluster % clustersX, cy = cluster / clustersX;
+
+        // Collect each entrance cell of this cluster with its partners across borders
+        Map<Integer, List<Integer>> partners = new LinkedHashMap<>();
+        addTransitions(partners, eastBorder(cluster), 0);
+        addTransitions(partners, southBorder(cluster), 0);
+        if (cx > 0) {
+            addTransitions(partners, eastBorder(cluster - 1), 1);
+        }
+        if (cy > 0) {
+            addTransitions(partners, southBorder(cluster - clustersX), 1);
+        }
+
+        int k = partners.size();
+        int[] cells = new int[k];
+        int[][] cellPartners = new int[k][];
+        int i = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : partners.entrySet()) {
+            cells[i] = entry.getKey();
+            cellPartners[i++] = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+        }
+        int[] costs = new int[k * k];
+        for (i = 0; i < k; i++) {
+            LocalTree tree = new LocalTree(cluster, new int[] { cells[i] }, false);
+            for (int j = 0; j < k; j++) {
+                costs[i * k + j] = tree.cost(cells[j]);
+            }
+        }
+        nodePartners[cluster] = cellPartners;
+        nodeCosts[cluster] = costs;
+        nodeCells[cluster] = cells;
+    }
+
+    /**
+     * Adds the transitions of a border to the given map, taking the cell at the
+     * given side (0 or 1) of each pair as this cluster's entrance.
+     */
+    private static void addTransitions (Map<Integer, List<Integer>> partners, int[] border, int side) {
+        for (int i = 0; i < border.length; i += 2) {
+            partners.computeIfAbsent(border[i + side], cell -> new ArrayList<>()).add(border[i + 1 - side]);
+        }
+    }
+
+    private int[] eastBorder (int cluster) {
+        if (eastBorders[cluster] == null) {
+            int cx = cluster % clustersX, cy = cluster / clustersX;
+            eastBorders[cluster] = (cx == clustersX - 1)
+                ? new int[0]
+                : findTransitions(Math.min(cols, (cx + 1) * clusterSize) - 1, cy * clusterSize, 1, 0, 0, 1,
+                                  Math.min(rows, (cy + 1) * clusterSize) - cy * clusterSize);
+        }
+        return eastBorders[cluster];
+    }
+
+    private int[] southBorder (int cluster) {
+        if (southBorders[cluster] == null) {
+            int cx = cluster % clustersX, cy = cluster / clustersX;
+            southBorders[cluster] = (cy == clustersY - 1)
+                ? new int[0]
+                : findTransitions(cx * clusterSize, Math.min(rows, (cy + 1) * clusterSize) - 1, 0, 1, 1, 0,
+                                  Math.min(cols, (cx + 1) * clusterSize) - cx * clusterSize);
+        }
+        return southBorders[cluster];
+    }
+
+    /**
+     * Scans a border for maximal runs of cells open on both sides, placing one
+     * transition in the middle of each short run and one at each end of a long one.
+     *
+     * @param col Column of the first cell on the near side of the border
+     * @param row Row of the first cell on the near side of the border
+     * @param dx Column offset from a near cell to its partner across the border
+     * @param dy Row offset from a near cell to its partner across the border
+     * @param stepX Column offset from one near cell to the next along the border
+     * @param stepY Row offset from one near cell to the next along the border
+     * @param length Number of cells along the border
+     * @return The transitions, as (near cell, far cell) pairs
+     */
+    private int[] findTransitions (int col, int row, int dx, int dy, int stepX, int stepY, int length) {
+        int[] result = new int[4 * length];
+        int count = 0, runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean open = i < length
+                && problem.getTile(col + i * stepX, row + i * stepY) != MazeProblem.WALL
+                && problem.getTile(col + i * stepX + dx, row + i * stepY + dy) != MazeProblem.WALL;
+            if (open && runStart == -1) {
+                runStart = i;
+            } else if (!open && runStart != -1) {
+                int runEnd = i - 1;
+                int[] positions = (runEnd - runStart + 1 < MAX_ENTRANCE_WIDTH)
+                    ? new int[] { (runStart + runEnd) / 2 }
+                    : new int[] { runStart, runEnd };
+                for (int position : positions) {
+                    int nearCol = col + position * stepX, nearRow = row + position * stepY;
+                    result[count++] = nearRow * cols + nearCol;
+                    result[count++] = (nearRow + dy) * cols + nearCol + dx;
+                }
+                runStart = -1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * A* search over the abstract graph whose nodes are the entrances plus the
+     * start and end of the query, and whose edges are the cached costs within
+     * clusters, the single steps across borders, and the local searches from the
+     * start and to the targets.
+     */
+    private class AbstractSearch {
+
+        private final int[] targets;
+        private final LocalTree startTree;
+        private final Map<Integer, LocalTree> targetTrees;
+        private final SearchListener listener;
+        private final boolean listening;
+        private final Map<Integer, Integer> pathCosts = new HashMap<>(), parents = new HashMap<>();
+        private final Set<Integer> closed = new HashSet<>();
+        private final PriorityQueue<Long> frontier = new PriorityQueue<>();
+
+        AbstractSearch (int[] targets, LocalTree startTree, Map<Integer, LocalTree> targetTrees, SearchListener listener) {
+            this.targets = targets;
+            this.startTree = startTree;
+            this.targetTrees = targetTrees;
+            this.listener = listener;
+            this.listening = listener != SearchListener.NONE;
+        }
+
+        /**
+         * @return The abstract nodes from START to END along the cheapest abstract
+         * path, or null if there is none
+         */
+        List<Integer> run () {
+            pathCosts.put(START, 0);
+            frontier.add(((long) estimate(START) << 32) | (START - START));
+            while (!frontier.isEmpty()) {
+                int id = (int) (frontier.poll() & 0xFFFFFFFFL) + START;
+                if (!closed.add(id)) {
+                    continue;
+                }
+                int pathCost = pathCosts.get(id);
+                if (id == END) {
+                    LinkedList<Integer> result = new LinkedList<>();
+                    for (int node = END; node != START; node = parents.get(node)) {
+                        result.addFirst(node);
+                    }
+                    result.addFirst(START);
+                    return result;
+                }
+
+                int cell = (id == START) ? -1 : id;
+                int cluster = (id == START) ? startTree.cluster : clusterOf(cell);
+                ensureCluster(cluster);
+                if (id != START) {
+                    if ( listening ) {
+                        listener.onExpand( problem.getState(cell), pathCost );
+                    }
+                }
+                LocalTree targetTree = targetTrees.get(cluster);
+                if (targetTree != null) {
+                    int toTarget = targetTree.cost((id == START) ? startTree.sources[0] : cell);
+                    if (toTarget != UNREACHABLE) {
+                        relax(id, END, pathCost + toTarget);
+                    }
+                }
+
+                int[] cells = nodeCells[cluster];
+                if (id == START) {
+                    for (int next : cells) {
+                        int cost = startTree.cost(next);
+                        if (cost != UNREACHABLE) {
+                            relax(id, next, pathCost + cost);
+                        }
+                    }
+                    continue;
+                }
+                int k = cells.length, index = 0;
+                while (cells[index] != cell) {
+                    index++;
+                }
+                for (int j = 0; j < k; j++) {
+                    int cost = nodeCosts[cluster][index * k + j];
+                    if (j != index && cost != UNREACHABLE) {
+                        relax(id, cells[j], pathCost + cost);
+                    }
+                }
+                for (int partner : nodePartners[cluster][index]) {
+                    relax(id, partner, pathCost + problem.getCost(partner));
+                }
+            }
+            return null;
+        }
+
+        private void relax (int from, int to, int pathCost) {
+            if (closed.contains(to) || pathCost >= pathCosts.getOrDefault(to, UNREACHABLE)) {
+                return;
+            }
+            pathCosts.put(to, pathCost);
+            parents.put(to, from);
+            long priority = pathCost + (long) estimate(to);
+            frontier.add((priority << 32) | (to - START));
+        }
+
+        private int estimate (int id) {
+            if (id == END) {
+                return 0;
+            }
+            int cell = (id == START) ? startTree.sources[0] : id;
+            int col = cell % cols, row = cell / cols, result = UNREACHABLE;
+            for (int target : targets) {
+                result = Math.min(result, Math.abs(col - target % cols) + Math.abs(row - target / cols));
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Dijkstra search confined to a single cluster, from a set of sources either
+     * forward (costs of paths from the sources) or in reverse (costs of paths to
+     * the nearest source), recording the move that leads along each cheapest path.
+     */
+    private class LocalTree {
+
+        final int cluster;
+        final int[] sources;
+        private final int col0, row0, width, height;
+        private final int[] costs;
+        private final byte[] moves;
+        private final boolean reverse;
+
+        LocalTree (int cluster, int[] sources, boolean reverse) {
+            this.cluster = cluster;
+            this.sources = sources;
+            this.reverse = reverse;
+            this.col0 = (cluster % clustersX) * clusterSize;
+            this.row0 = (cluster / clustersX) * clusterSize;
+            this.width = Math.min(cols, col0 + clusterSize) - col0;
+            this.height = Math.min(rows, row0 + clusterSize) - row0;
+            this.costs = new int[width * height];
+            this.moves = new byte[width * height];
+            Arrays.fill(costs, UNREACHABLE);
+
+            SearchPriorityQueue frontier = new SearchPriorityQueue(width * height);
+            int[] neighbors = new int[4];
+            byte[] actions = new byte[4];
+            for (int source : sources) {
+                int local = local(source);
+                if (costs[local] != 0) {
+                    costs[local] = 0;
+                    frontier.add(local, 0);
+                }
+            }
+            while (!frontier.isEmpty()) {
+                int current = frontier.poll(), currentId = global(current);
+                int count = problem.expand(currentId, neighbors, actions);
+                for (int i = 0; i < count; i++) {
+                    int next = local(neighbors[i]);
+                    if (next == -1) {
+                        continue;
+                    }
+                    // Forward, we pay to step onto next; in reverse, next pays to
+                    // step onto current, and its move is back the way we came
+                    int cost = costs[current] + problem.getCost(reverse ? currentId : neighbors[i]);
+                    byte move = (byte) (reverse ? actions[i] ^ 1 : actions[i]);
+                    if (costs[next] == UNREACHABLE) {
+                        costs[next] = cost;
+                        moves[next] = move;
+                        frontier.add(next, cost);
+                    } else if (frontier.decreaseKey(next, cost)) {
+                        costs[next] = cost;
+                        moves[next] = move;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return The cost from a source to the given cell (or, in reverse, from
+         * the cell to the nearest source), or UNREACHABLE
+         */
+        int cost (int stateId) {
+            int local = local(stateId);
+            return (local == -1) ? UNREACHABLE : costs[local];
+        }
+
+        /**
+         * Appends the moves from a source to the given cell; forward trees only.
+         */
+        void appendPathTo (int stateId, ArrayList<String> out) {
+            int length = 0;
+            for (int id = stateId; costs[local(id)] != 0; id = step(id, moves[local(id)] ^ 1)) {
+                length++;
+            }
+            String[] path = new String[length];
+            for (int id = stateId; costs[local(id)] != 0; id = step(id, moves[local(id)] ^ 1)) {
+                path[--length] = MazeProblem.getAction(moves[local(id)]);
+            }
+            out.addAll(Arrays.asList(path));
+        }
+
+        /**
+         * Appends the moves from the given cell to the nearest source; reverse trees only.
+         */
+        void appendPathFrom (int stateId, ArrayList<String> out) {
+            for (int id = stateId; costs[local(id)] != 0; id = step(id, moves[local(id)])) {
+                out.add(MazeProblem.getAction(moves[local(id)]));
+            }
+        }
+
+        private int local (int stateId) {
+            int col = stateId % cols - col0, row = stateId / cols - row0;
+            return (col >= 0 && col < width && row >= 0 && row < height) ? row * width + col : -1;
+        }
+
+        private int global (int local) {
+            return (row0 + local / width) * cols + col0 + local % width;
+        }
+
+    }
+
+}
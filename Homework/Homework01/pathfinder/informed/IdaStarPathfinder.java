@@ -0,0 +1,204 @@
+// package pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Maze Pathfinding algorithm that implements iterative-deepening A* (IDA*): a
+ * series of depth-first searches, each bounded by a limit on f(n) = g(n) + h(n)
+ * that grows to the smallest f(n) that exceeded the previous limit. Only the
+ * current path is kept, so memory grows with the depth of the path rather than
+ * with the number of states explored, at the cost of re-expanding states. An
+ * optional TranspositionTable of bounded size cuts down on re-expansion.
+ */
+public class IdaStarPathfinder {
+
+    /**
+     * Number of TranspositionTable entries used by SearchMode.IDA_STAR.
+     */
+    public static final int DEFAULT_TABLE_CAPACITY = 1 << 16;
+
+    /**
+     * Returns list of steps to take from first input state to second input state
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to
+     * @param MazeProblem representing maze to search for state in
+     * @param SearchListener notified of each expansion, enqueue and the goal
+     * @param tableCapacity Number of TranspositionTable entries, or 0 for none
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public static ArrayList<String> goFromTo(MazeState startState, MazeState endState, MazeProblem problem, SearchListener listener, int tableCapacity) {
+        if (!problem.canReach(startState, endState)) {
+            return null;
+        }
+        TranspositionTable table = (tableCapacity > 0) ? new TranspositionTable(tableCapacity) : null;
+        Search search = new Search(problem, problem.getStateId(endState), problem.isGoal(endState), table, listener);
+        return search.run(problem.getStateId(startState));
+    }
+
+    /**
+     * Given a MazeProblem, returns a solution to the problem as a sequence of actions
+     * that leads from the initial state, through the key, to a goal, using IDA* for
+     * both legs.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param listener A SearchListener notified of each expansion, enqueue and goal
+     * @param tableCapacity Number of TranspositionTable entries, or 0 for none
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve(MazeProblem problem, SearchListener listener, int tableCapacity) {
+        if (problem.KEY_STATE == null) {
+            return goFromTo( problem.INITIAL_STATE, problem.GOAL_STATES.get(0), problem, listener, tableCapacity );
+        }
+        ArrayList<String> keyPath = goFromTo( problem.INITIAL_STATE, problem.KEY_STATE, problem, listener, tableCapacity );
+        if (keyPath == null) {
+            return null;
+        }
+        ArrayList<String> goalPath = goFromTo( problem.KEY_STATE, problem.GOAL_STATES.get(0), problem, listener, tableCapacity );
+        if (goalPath == null) {
+            return null;
+        }
+        keyPath.addAll( goalPath );
+        return keyPath;
+    }
+
+    /**
+     * State of a single IDA* search. The current path is held in parallel arrays
+     * indexed by depth, which grow only as deep as the path does; the
+     * depth-first search is iterative so that long paths cannot overflow the stack.
+     */
+    private static class Search {
+
+        private final MazeProblem problem;
+        private final int endId;
+        private final boolean lookingForGoal;
+        private final TranspositionTable table;
+        private final SearchListener listener;
+        private final boolean listening;
+        private final StateSet onPath;
+
+        // Per depth: state id, path cost, action taken to reach it, number of
+        // neighbors and index of the next neighbor to try; neighbors hold 4 per depth
+        private int[] stateIds = new int[64], pathCosts = new int[64],
+                      counts = new int[64], nextIndex = new int[64], neighbors = new int[256];
+        private byte[] directions = new byte[64], actions = new byte[256];
+        private final int[] expandedIds = new int[4];
+        private final byte[] expandedActions = new byte[4];
+        // Smallest f(n) cut off by the last iteration, the bound for the next one
+        private int nextBound;
+
+        Search (MazeProblem problem, int endId, boolean lookingForGoal, TranspositionTable table, SearchListener listener) {
+            this.problem = problem;
+            this.endId = endId;
+            this.lookingForGoal = lookingForGoal;
+            this.table = table;
+            this.listener = listener;
+            this.listening = listener != SearchListener.NONE;
+            this.onPath = new StateSet(problem);
+        }
+
+        ArrayList<String> run (int startId) {
+            int bound = estimate(startId);
+            for (int iteration = 1; bound != DistanceTable.UNREACHABLE; iteration++) {
+                int depth = search(startId, bound, iteration);
+                if (depth >= 0) {
+                    if ( listening ) {
+                        listener.onGoal( problem.getState(stateIds[depth]), pathCosts[depth] );
+                    }
+                    ArrayList<String> result = new ArrayList<>(depth);
+                    for (int i = 1; i <= depth; i++) {
+                        result.add(MazeProblem.getAction(directions[i]));
+                    }
+                    return result;
+                }
+                bound = nextBound;
+            }
+            return null;
+        }
+
+        /**
+         * Runs one depth-first iteration bounded by the given f(n) limit.
+         *
+         * @return The depth of the target on the path found, or -1 if there is none
+         * within the bound, in which case nextBound holds the limit for the next
+         * iteration (or UNREACHABLE if nothing was cut off)
+         */
+        private int search (int startId, int bound, int iteration) {
+            nextBound = DistanceTable.UNREACHABLE;
+            onPath.clear();
+            int depth = 0;
+            push(depth, startId, 0, (byte) 0);
+
+            while (depth >= 0) {
+                int currentId = stateIds[depth];
+                if (nextIndex[depth] == -1) {
+                    // First visit: cut off beyond the bound, else test and expand
+                    int estimate = estimate(currentId);
+                    int f = (estimate == DistanceTable.UNREACHABLE) ? estimate : pathCosts[depth] + estimate;
+                    if (f > bound) {
+                        nextBound = Math.min(nextBound, f);
+                        onPath.remove(currentId);
+                        depth--;
+                        continue;
+                    }
+                    if (isTarget(currentId)) {
+                        return depth;
+                    }
+                    if ( listening ) {
+                        listener.onExpand( problem.getState(currentId), pathCosts[depth] );
+                    }
+                    int count = problem.expand(currentId, expandedIds, expandedActions);
+                    System.arraycopy(expandedIds, 0, neighbors, depth * 4, count);
+                    System.arraycopy(expandedActions, 0, actions, depth * 4, count);
+                    counts[depth] = count;
+                    nextIndex[depth] = 0;
+                }
+                if (nextIndex[depth] == counts[depth]) {
+                    onPath.remove(currentId);
+                    depth--;
+                    continue;
+                }
+
+                int i = depth * 4 + nextIndex[depth]++;
+                int nextId = neighbors[i];
+                if (onPath.contains(nextId)) {
+                    continue;
+                }
+                int pathCost = pathCosts[depth] + problem.getCost(nextId);
+                if (table != null && table.prune(nextId, pathCost, iteration)) {
+                    continue;
+                }
+                push(++depth, nextId, pathCost, actions[i]);
+            }
+            return -1;
+        }
+
+        private void push (int depth, int stateId, int pathCost, byte direction) {
+            if (depth == stateIds.length) {
+                int capacity = 2 * depth;
+                stateIds = Arrays.copyOf(stateIds, capacity);
+                pathCosts = Arrays.copyOf(pathCosts, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                nextIndex = Arrays.copyOf(nextIndex, capacity);
+                directions = Arrays.copyOf(directions, capacity);
+                neighbors = Arrays.copyOf(neighbors, 4 * capacity);
+                actions = Arrays.copyOf(actions, 4 * capacity);
+            }
+            stateIds[depth] = stateId;
+            pathCosts[depth] = pathCost;
+            directions[depth] = direction;
+            nextIndex[depth] = -1;
+            onPath.add(stateId);
+        }
+
+        private boolean isTarget (int stateId) {
+            return (lookingForGoal) ? problem.isGoal(stateId) : stateId == endId;
+        }
+
+        private int estimate (int stateId) {
+            return (lookingForGoal) ? problem.distanceToGoal(stateId) : problem.estimateDistance(stateId, endId);
+        }
+
+    }
+
+}
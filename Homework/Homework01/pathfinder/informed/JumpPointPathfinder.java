@@ -0,0 +1,277 @@
+// package pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Maze Pathfinding algorithm that implements Jump Point Search, a variant of A*
+ * that, across regions of uniform cost, "jumps" along straight lines instead of
+ * pushing every cell onto the frontier, only stopping at cells where the route
+ * may need to turn. Mud tiles break the uniform-cost assumption, so any mud tile
+ * or tile next to one is treated as a jump point and expanded in every direction,
+ * exactly as A* would.
+ */
+public class JumpPointPathfinder {
+
+    // Direction offsets indexed by the MazeProblem direction ordinals
+    private static final int[] COL_OFFSETS = {0, 0, -1, 1},
+                               ROW_OFFSETS = {-1, 1, 0, 0};
+
+    /**
+     * Returns list of steps to take from first input state to second input state
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to
+     * @param MazeProblem representing maze to search for state in
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public static ArrayList<String> goFromTo(MazeState startState, MazeState endState, MazeProblem problem) {
+        return goFromTo(startState, endState, problem, SearchListener.NONE);
+    }
+
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * reporting the progress of the search to the given listener; only jump points
+     * are reported as enqueued and expanded
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to
+     * @param MazeProblem representing maze to search for state in
+     * @param SearchListener notified of each expansion, enqueue and the goal
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public static ArrayList<String> goFromTo(MazeState startState, MazeState endState, MazeProblem problem, SearchListener listener) {
+        if (!problem.canReach(startState, endState)) {
+            return null;
+        }
+        Search search = new Search(problem, problem.getStateId(endState), problem.isGoal(endState));
+        return search.run(startState, listener);
+    }
+
+    /**
+     * Given a MazeProblem, returns a solution to the problem as a sequence of actions
+     * that leads from the initial state, through the key, to a goal, using Jump Point
+     * Search for both legs.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param listener A SearchListener notified of each expansion, enqueue and goal
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve(MazeProblem problem, SearchListener listener) {
+        if (problem.KEY_STATE == null) {
+            return goFromTo( problem.INITIAL_STATE, problem.GOAL_STATES.get(0), problem, listener );
+        }
+        ArrayList<String> keyPath = goFromTo( problem.INITIAL_STATE, problem.KEY_STATE, problem, listener );
+        if (keyPath == null) {
+            return null;
+        }
+        ArrayList<String> goalPath = goFromTo( problem.KEY_STATE, problem.GOAL_STATES.get(0), problem, listener );
+        if (goalPath == null) {
+            return null;
+        }
+        keyPath.addAll( goalPath );
+        return keyPath;
+    }
+
+    /**
+     * State of a single Jump Point Search: the maze, its target, and the frontier.
+     */
+    private static class Search {
+
+        private final MazeProblem problem;
+        private final int rows, cols, endId;
+        private final boolean lookingForGoal;
+
+        Search (MazeProblem problem, int endId, boolean lookingForGoal) {
+            this.problem = problem;
+            this.rows = problem.getRows();
+            this.cols = problem.getCols();
+            this.endId = endId;
+            this.lookingForGoal = lookingForGoal;
+        }
+
+        ArrayList<String> run (MazeState startState, SearchListener listener) {
+            int size = rows * cols;
+            SearchPriorityQueue frontier = new SearchPriorityQueue(size);
+            // Jump point tree, indexed by state id: each jump point's parent, the
+            // direction jumped to reach it, and its path cost
+            int[] parents = new int[size], pathCosts = new int[size];
+            byte[] moves = new byte[size];
+            StateSet visitedStates = new StateSet(problem);
+            int startId = problem.getStateId(startState);
+            boolean listening = listener != SearchListener.NONE;
+
+            int heuristic = estimate(startId);
+            if (heuristic == DistanceTable.UNREACHABLE) {
+                return null;
+            }
+            parents[startId] = -1;
+            frontier.add( startId, heuristic );
+            listener.onEnqueue( startState, 0, heuristic );
+
+            while (!frontier.isEmpty()) {
+                int currentId = frontier.poll();
+                visitedStates.add(currentId);
+                if ( listening ) {
+                    listener.onExpand( problem.getState(currentId), pathCosts[currentId] );
+                }
+
+                if ( isTarget(currentId) ) {
+                    if ( listening ) {
+                        listener.onGoal( problem.getState(currentId), pathCosts[currentId] );
+                    }
+                    return buildPath(parents, moves, currentId);
+                }
+
+                int col = currentId % cols, row = currentId / cols;
+                for (byte direction = 0; direction < 4; direction++) {
+                    if ( !isSuccessorDirection(parents[currentId], moves[currentId], col, row, direction) ) {
+                        continue;
+                    }
+                    int nextId = jump(col, row, direction);
+                    if ( nextId == -1 || visitedStates.contains(nextId) ) {
+                        continue;
+                    }
+                    int estimate = estimate(nextId);
+                    if ( estimate == DistanceTable.UNREACHABLE ) {
+                        continue;
+                    }
+
+                    // Every cell jumped over costs 1; only the jump point itself may
+                    // be a mud tile
+                    int steps = Math.abs(nextId % cols - col) + Math.abs(nextId / cols - row);
+                    int pathCost = pathCosts[currentId] + steps - 1 + problem.getCost(nextId);
+                    heuristic = pathCost + estimate;
+                    boolean improved = !frontier.contains(nextId);
+                    if ( improved ) {
+                        frontier.add( nextId, heuristic );
+                    } else {
+                        improved = frontier.decreaseKey( nextId, heuristic );
+                    }
+                    if ( improved ) {
+                        parents[nextId] = currentId;
+                        moves[nextId] = direction;
+                        pathCosts[nextId] = pathCost;
+                        if ( listening ) {
+                            listener.onEnqueue( problem.getState(nextId), pathCost, heuristic );
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns whether the search should jump from the given node in the given
+         * direction. The root and any cell touching mud are expanded in every
+         * direction; otherwise the direction we arrived from is pruned, as is any
+         * direction a canonical path would not take from here.
+         */
+        private boolean isSuccessorDirection (int parentId, byte arrival, int col, int row, byte direction) {
+            if (parentId == -1 || touchesMud(col, row)) {
+                return true;
+            }
+            // Never head straight back toward the parent; opposite direction
+            // ordinals pair up as (UP, DOWN) and (LEFT, RIGHT)
+            return direction != (arrival ^ 1);
+        }
+
+        /**
+         * Jumps from (col, row) in the given direction, returning the id of the
+         * first jump point reached, or -1 if a wall or the edge of the maze is hit
+         * first.
+         */
+        private int jump (int col, int row, byte direction) {
+            int dCol = COL_OFFSETS[direction], dRow = ROW_OFFSETS[direction];
+            while (true) {
+                col += dCol;
+                row += dRow;
+                if (!isOpen(col, row)) {
+                    return -1;
+                }
+                int id = row * cols + col;
+                if (isTarget(id) || touchesMud(col, row)) {
+                    return id;
+                }
+                // Mud is treated as an obstacle when looking for forced neighbors,
+                // since a path around it is not interchangeable with one through it
+                if (dCol != 0) {
+                    // Moving horizontally: stop where a cell above or below opens up
+                    // beside an obstacle we have just passed
+                    if ((isClear(col, row - 1) && !isClear(col - dCol, row - 1)) ||
+                        (isClear(col, row + 1) && !isClear(col - dCol, row + 1))) {
+                        return id;
+                    }
+                } else {
+                    // Moving vertically: stop where a cell to either side opens up
+                    // beside an obstacle we have just passed, or where a horizontal
+                    // jump from here would find a jump point
+                    if ((isClear(col - 1, row) && !isClear(col - 1, row - dRow)) ||
+                        (isClear(col + 1, row) && !isClear(col + 1, row - dRow))) {
+                        return id;
+                    }
+                    if (jump(col, row, MazeProblem.LEFT) != -1 || jump(col, row, MazeProblem.RIGHT) != -1) {
+                        return id;
+                    }
+                }
+            }
+        }
+
+        private boolean isTarget (int stateId) {
+            return (lookingForGoal) ? problem.isGoal(stateId) : stateId == endId;
+        }
+
+        private int estimate (int stateId) {
+            return (lookingForGoal) ? problem.distanceToGoal(stateId) : problem.estimateDistance(stateId, endId);
+        }
+
+        private boolean isOpen (int col, int row) {
+            return row >= 0 && row < rows && col >= 0 && col < cols
+                && problem.getTile(col, row) != MazeProblem.WALL;
+        }
+
+        /**
+         * @return Whether the given cell is open and of uniform (non-mud) cost
+         */
+        private boolean isClear (int col, int row) {
+            return isOpen(col, row) && problem.getTile(col, row) != MazeProblem.MUD;
+        }
+
+        private boolean isMud (int col, int row) {
+            return row >= 0 && row < rows && col >= 0 && col < cols
+                && problem.getTile(col, row) == MazeProblem.MUD;
+        }
+
+        /**
+         * @return Whether the given cell is mud or next to a mud tile, i.e., where
+         * step costs stop being uniform
+         */
+        private boolean touchesMud (int col, int row) {
+            return isMud(col, row) || isMud(col - 1, row) || isMud(col + 1, row)
+                || isMud(col, row - 1) || isMud(col, row + 1);
+        }
+
+        /**
+         * Expands the chain of jump points ending at the given state into one action
+         * per step, sizing the result before filling it in from the end.
+         */
+        private ArrayList<String> buildPath (int[] parents, byte[] moves, int endId) {
+            int length = 0;
+            for (int id = endId; parents[id] != -1; id = parents[id]) {
+                length += steps(id, parents[id]);
+            }
+            String[] path = new String[length];
+            for (int id = endId; parents[id] != -1; id = parents[id]) {
+                String action = MazeProblem.getAction(moves[id]);
+                for (int i = steps(id, parents[id]); i > 0; i--) {
+                    path[--length] = action;
+                }
+            }
+            return new ArrayList<>(Arrays.asList(path));
+        }
+
+        private int steps (int fromId, int toId) {
+            return Math.abs(fromId % cols - toId % cols) + Math.abs(fromId / cols - toId / cols);
+        }
+
+    }
+
+}
@@ -0,0 +1,311 @@
+// package pathfinder.informed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * ALT Heuristic (A*, Landmarks, Triangle inequality): the exact cost of the
+ * cheapest path from every state to each of a few landmark cells is computed up
+ * front, and the cost between two states is then bounded below by how much
+ * closer one of them is to some landmark than the other. In mazes full of walls
+ * and corridors this is far tighter than the Manhattan distance, since it
+ * accounts for the detours the walls force.
+ *
+ * Landmarks are chosen by farthest-point selection, each as far as possible from
+ * those already chosen, so that they end up around the edges of the maze. The
+ * tables are only valid for the tiles they were computed on: once a tile
+ * changes, estimates fall back to the Manhattan distance until a new
+ * LandmarkHeuristic is built. Tables can be saved alongside the maze and loaded
+ * back rather than recomputed.
+ */
+public class LandmarkHeuristic implements Heuristic, TileListener {
+
+    /**
+     * Number of landmarks chosen when none is given.
+     */
+    public static final int DEFAULT_LANDMARKS = 8;
+
+    // Marks the start of a saved table, and its format version
+    private static final int MAGIC = 0x414C5401;
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeProblem problem;
+    private final int[] landmarks;
+    // Cost of the cheapest path from each state to each landmark, interleaved so
+    // that all of a state's distances are adjacent: [stateId * landmarks + i]
+    private final int[] distances;
+    private volatile boolean stale;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a LandmarkHeuristic for the given MazeProblem with
+     * DEFAULT_LANDMARKS landmarks.
+     *
+     * @param problem The MazeProblem to estimate costs in
+     */
+    public LandmarkHeuristic (MazeProblem problem) {
+        this(problem, DEFAULT_LANDMARKS);
+    }
+
+    /**
+     * Constructs a LandmarkHeuristic for the given MazeProblem, choosing the given
+     * number of landmarks and running one reverse Dijkstra search from each, plus
+     * one to find the first landmark.
+     *
+     * @param problem The MazeProblem to estimate costs in
+     * @param landmarkCount Number of landmarks to choose; fewer are chosen if the
+     * maze has fewer open cells
+     */
+    public LandmarkHeuristic (MazeProblem problem, int landmarkCount) {
+        if (landmarkCount < 1) {
+            throw new IllegalArgumentException("landmarkCount must be positive: " + landmarkCount);
+        }
+        int size = problem.getRows() * problem.getCols();
+        int[] chosen = new int[Math.min(landmarkCount, size)];
+        DistanceTable[] tables = new DistanceTable[chosen.length];
+
+        // Closest known landmark distance of every cell; the first landmark is
+        // the cell farthest from the initial state
+        int[] nearest = new int[size];
+        int seed = (problem.INITIAL_STATE == null) ? firstOpenCell(problem) : problem.getStateId(problem.INITIAL_STATE);
+        int count = 0;
+        if (seed != -1) {
+            DistanceTable fromSeed = new DistanceTable(problem, seed);
+            for (int id = 0; id < size; id++) {
+                nearest[id] = fromSeed.get(id);
+            }
+            for (; count < chosen.length; count++) {
+                int next = farthest(nearest);
+                if (next == -1) {
+                    break;
+                }
+                chosen[count] = next;
+                tables[count] = new DistanceTable(problem, next);
+                for (int id = 0; id < size; id++) {
+                    int distance = tables[count].get(id);
+                    if (count == 0 || distance < nearest[id]) {
+                        nearest[id] = distance;
+                    }
+                }
+            }
+        }
+
+        this.problem = problem;
+        this.landmarks = Arrays.copyOf(chosen, count);
+        this.distances = new int[size * count];
+        for (int i = 0; i < count; i++) {
+            for (int id = 0; id < size; id++) {
+                distances[id * count + i] = tables[i].get(id);
+            }
+        }
+        problem.addTileListener(this);
+    }
+
+    /**
+     * Constructs a LandmarkHeuristic from tables already computed.
+     */
+    private LandmarkHeuristic (MazeProblem problem, int[] landmarks, int[] distances) {
+        this.problem = problem;
+        this.landmarks = landmarks;
+        this.distances = distances;
+        problem.addTileListener(this);
+    }
+
+    /**
+     * Loads a LandmarkHeuristic saved by save, for the given MazeProblem.
+     *
+     * @param path Path of the file to load
+     * @param problem The MazeProblem the tables were computed for
+     * @return The LandmarkHeuristic described by the file
+     * @throws IOException if the file cannot be read or is not a saved table
+     * @throws IllegalArgumentException if the tables were computed for a maze with
+     * different tiles
+     */
+    public static LandmarkHeuristic load (Path path, MazeProblem problem) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a landmark table: " + path);
+            }
+            int rows = in.readInt(), cols = in.readInt(), fingerprint = in.readInt();
+            if (rows != problem.getRows() || cols != problem.getCols() || fingerprint != fingerprint(problem)) {
+                throw new IllegalArgumentException("Landmark table was computed for a different maze: " + path);
+            }
+            int count = in.readInt();
+            if (count < 0 || count > rows * cols) {
+                throw new IOException("Corrupt landmark table: " + path);
+            }
+            int[] landmarks = new int[count];
+            for (int i = 0; i < count; i++) {
+                landmarks[i] = in.readInt();
+            }
+            int[] distances = new int[rows * cols * count];
+            for (int i = 0; i < distances.length; i++) {
+                distances[i] = in.readInt();
+            }
+            return new LandmarkHeuristic(problem, landmarks, distances);
+        }
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Writes this heuristic's landmarks and distance tables to the given file,
+     * along with the maze's dimensions and a fingerprint of its tiles, so that
+     * they can be loaded for the same maze without being recomputed.
+     *
+     * @param path Path of the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save (Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(problem.getRows());
+            out.writeInt(problem.getCols());
+            out.writeInt(fingerprint(problem));
+            out.writeInt(landmarks.length);
+            for (int landmark : landmarks) {
+                out.writeInt(landmark);
+            }
+            for (int distance : distances) {
+                out.writeInt(distance);
+            }
+        }
+    }
+
+    /**
+     * Returns a lower bound on the cost of a path from one state to another: the
+     * largest of the Manhattan distance and every landmark's triangle inequality
+     * bound. Costs are paid on stepping onto a state, so a path and its reverse
+     * differ by the costs of their ends, and both directions of the inequality
+     * can be read off the same table.
+     *
+     * @param stateId id of the state to start from
+     * @param targetId id of the target state
+     * @return int estimated cost, or DistanceTable.UNREACHABLE if some landmark
+     * is reachable from one state but not the other
+     */
+    @Override
+    public int estimateDistance (int stateId, int targetId) {
+        int best = problem.distance(stateId, targetId);
+        if (stale) {
+            return best;
+        }
+        int count = landmarks.length;
+        int from = stateId * count, to = targetId * count;
+        // d(L, t) - d(L, s) = d(t, L) - d(s, L) + cost(t) - cost(s)
+        int costDifference = problem.getCost(targetId) - problem.getCost(stateId);
+        for (int i = 0; i < count; i++) {
+            int fromDistance = distances[from + i], toDistance = distances[to + i];
+            if (fromDistance == DistanceTable.UNREACHABLE || toDistance == DistanceTable.UNREACHABLE) {
+                if (fromDistance != toDistance) {
+                    return DistanceTable.UNREACHABLE;
+                }
+                continue;
+            }
+            // d(s, t) >= d(s, L) - d(t, L), and d(s, t) >= d(L, t) - d(L, s)
+            int bound = Math.max(fromDistance - toDistance, toDistance - fromDistance + costDifference);
+            if (bound > best) {
+                best = bound;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns a lower bound on the cost of a path from the given state to the
+     * nearest goal, the smallest of the bounds to each goal.
+     *
+     * @param stateId id of the state to start from
+     * @return int estimated cost, or DistanceTable.UNREACHABLE if no goal is
+     * reachable from the state
+     */
+    @Override
+    public int distanceToGoal (int stateId) {
+        int best = DistanceTable.UNREACHABLE;
+        for (MazeState goal : problem.GOAL_STATES) {
+            best = Math.min(best, estimateDistance(stateId, problem.getStateId(goal)));
+        }
+        return best;
+    }
+
+    /**
+     * @return The state ids of the landmarks, in the order they were chosen
+     */
+    public int[] getLandmarks () {
+        return landmarks.clone();
+    }
+
+    /**
+     * @return Whether a tile has changed since the tables were computed, so that
+     * estimates have fallen back to the Manhattan distance
+     */
+    public boolean isStale () {
+        return stale;
+    }
+
+    /**
+     * Marks the tables stale: they may now overestimate wherever a wall was opened.
+     */
+    @Override
+    public void onTileChanged (int stateId, byte oldTile, byte newTile) {
+        stale = true;
+    }
+
+    /**
+     * Stops listening for tile changes in the maze, so that this heuristic can be
+     * garbage collected while the maze lives on.
+     */
+    public void close () {
+        problem.removeTileListener(this);
+    }
+
+    /**
+     * Returns the open cell with the greatest finite distance in the given table,
+     * or -1 if every such cell is at distance 0 (i.e., already a landmark).
+     */
+    private static int farthest (int[] nearest) {
+        int result = -1, best = 0;
+        for (int id = 0; id < nearest.length; id++) {
+            if (nearest[id] != DistanceTable.UNREACHABLE && nearest[id] > best) {
+                best = nearest[id];
+                result = id;
+            }
+        }
+        return result;
+    }
+
+    private static int firstOpenCell (MazeProblem problem) {
+        for (int id = 0; id < problem.getRows() * problem.getCols(); id++) {
+            if (problem.getTile(id % problem.getCols(), id / problem.getCols()) != MazeProblem.WALL) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return A hash of the maze's tiles, to check that saved tables match it
+     */
+    private static int fingerprint (MazeProblem problem) {
+        int result = 1;
+        for (int row = 0; row < problem.getRows(); row++) {
+            for (int col = 0; col < problem.getCols(); col++) {
+                result = 31 * result + problem.getTile(col, row);
+            }
+        }
+        return result;
+    }
+
+}
@@ -3,20 +3,44 @@
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * Specifies the Maze Grid pathfinding problem including the actions, transitions,
  * goal test, and solution test. Can be fed as an input to a Search algorithm to
  * find and then test a solution.
  */
-public class MazeProblem {
+public class MazeProblem implements Heuristic {
 
     // Fields
     // -----------------------------------------------------------------------------
-    private String[] maze;
-    private int rows, cols;
+    private final byte[] tiles;
+    // Interned MazeStates, in pages of STATE_PAGE_SIZE ids that are only allocated
+    // once a state in them is first asked for, so that a large maze pays for the
+    // states its searches report rather than a reference per cell up front
+    private final MazeState[][] statePages;
+    private final int rows, cols;
+    private DistanceTable keyDistances, goalDistances;
+    private HierarchicalPathfinder hierarchy;
+
+    // Component label of every cell, where two open cells share a label if and
+    // only if they are connected, and the tile version it was computed for. The
+    // array is replaced whole rather than modified, so that queries from several
+    // threads need no lock; it is relabelled lazily once a tile has changed
+    private volatile int[] components;
+    private volatile int componentsVersion, tileVersion;
+    private final Object componentsLock = new Object();
+    private final ArrayList<TileListener> tileListeners = new ArrayList<>();
+    // KEY_STATE is the last key in row-major order, the one the key-then-goal
+    // solvers collect; KEY_STATES holds every key, for WaypointPlanner
     public final MazeState INITIAL_STATE, KEY_STATE;
-    public final ArrayList<MazeState> GOAL_STATES;
+    public final ArrayList<MazeState> GOAL_STATES, KEY_STATES;
     private static final Map<String, MazeState> TRANS_MAP = createTransitions();
 
     /**
@@ -33,6 +57,22 @@ public class MazeProblem {
         return result;
     }
 
+    // Tile codes stored in the packed grid, one byte per cell at index row * cols + col
+    public static final byte OPEN = 0, WALL = 1, MUD = 2, KEY = 3, GOAL = 4, INITIAL = 5;
+
+    // Cost of stepping onto each kind of tile, indexed by tile code; walls can
+    // never be stepped onto
+    private static final int[] STEP_COSTS = {1, Integer.MAX_VALUE, 3, 1, 1, 1};
+
+    // Direction ordinals reported by expand, with their action Strings and offsets
+    public static final byte UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+    private static final String[] ACTIONS = {"U", "D", "L", "R"};
+    private static final int[] COL_OFFSETS = {0, 0, -1, 1},
+                               ROW_OFFSETS = {-1, 1, 0, 0};
+
+    // Number of state ids per page of interned MazeStates
+    private static final int STATE_PAGE_SIZE = 1024;
+
 
     // Constructor
     // -----------------------------------------------------------------------------
@@ -57,47 +97,504 @@ public class MazeProblem {
      * </pre>
      */
     MazeProblem (String[] maze) {
-        this.maze = maze;
-        this.rows = maze.length;
-        this.cols = (rows == 0) ? 0 : maze[0].length();
+        this(maze.length, (maze.length == 0) ? 0 : maze[0].length(), toTiles(maze));
+    }
+
+    /**
+     * Constructs a new MazeProblem from an already packed tile grid.
+     *
+     * @param rows Number of rows in the maze
+     * @param cols Number of columns in the maze
+     * @param tiles Tile codes of the maze, indexed row * cols + col; may be longer
+     * than rows * cols, in which case the extra entries are ignored
+     */
+    private MazeProblem (int rows, int cols, byte[] tiles) {
+        this.tiles = tiles;
+        this.statePages = new MazeState[(rows * cols + STATE_PAGE_SIZE - 1) / STATE_PAGE_SIZE][];
+        this.rows = rows;
+        this.cols = cols;
         MazeState foundInitial = null, foundKey = null;
         GOAL_STATES = new ArrayList<>();
+        KEY_STATES = new ArrayList<>();
 
         // Find the initial and goal state in the given maze, and then
         // store in fields once found
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < cols; col++) {
-                switch (maze[row].charAt(col)) {
-                case 'I':
-                    foundInitial = new MazeState(col, row); break;
-                case 'G':
-                    GOAL_STATES.add(new MazeState(col, row)); break;
-                case 'K':
-                    foundKey = new MazeState(col, row); break;
-                case 'M':
-                case '.':
-                case 'X':
-                    break;
-                default:
-                    throw new IllegalArgumentException("Maze formatted invalidly");
-                }
+        for (int id = 0; id < rows * cols; id++) {
+            switch (tiles[id]) {
+            case INITIAL:
+                foundInitial = getState(id); break;
+            case GOAL:
+                GOAL_STATES.add(getState(id)); break;
+            case KEY:
+                foundKey = getState(id);
+                KEY_STATES.add(foundKey); break;
             }
         }
         INITIAL_STATE = foundInitial;
         KEY_STATE = foundKey;
+        components = labelComponents();
+    }
+
+    /**
+     * Loads a MazeProblem from a text file with one maze row per line, in the same
+     * format as the String[] constructor. Lines may end in LF or CRLF, and blank
+     * lines at the end of the file are ignored. The file is memory-mapped rather
+     * than read into Strings, so very large grids are packed straight into the
+     * tile array.
+     *
+     * @param path Path of the maze file to load
+     * @return The MazeProblem described by the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the rows differ in length, or a blank
+     * line is followed by another row
+     */
+    public static MazeProblem load (Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Maze file too large to load: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+
+            // There can be no more tiles than bytes in the file, so pack into an
+            // array of that size rather than growing one as rows are read
+            byte[] tiles = new byte[(int) length];
+            int rows = 0, cols = -1, count = 0, rowStart = 0;
+            boolean blankLine = false;
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\r') {
+                    continue;
+                }
+                if (b == '\n') {
+                    if (count == rowStart) {
+                        // Only allowed at the end of the file, checked by the next tile
+                        blankLine = true;
+                        continue;
+                    }
+                    cols = endRow(cols, count - rowStart);
+                    rowStart = count;
+                    rows++;
+                    continue;
+                }
+                if (blankLine) {
+                    throw new IllegalArgumentException("Maze formatted invalidly");
+                }
+                tiles[count++] = toTile((char) b);
+            }
+            if (count > rowStart) {
+                cols = endRow(cols, count - rowStart);
+                rows++;
+            }
+            return new MazeProblem(rows, Math.max(cols, 0), tiles);
+        }
+    }
+
+    /**
+     * Checks that a row just read by load is as long as the rows before it.
+     *
+     * @return The column count of the maze
+     */
+    private static int endRow (int cols, int rowLength) {
+        if (cols != -1 && cols != rowLength) {
+            throw new IllegalArgumentException("Maze formatted invalidly");
+        }
+        return rowLength;
+    }
+
+    /**
+     * @return Packs the given String rows into a tile grid indexed row * cols + col
+     */
+    private static byte[] toTiles (String[] maze) {
+        int rows = maze.length, cols = (rows == 0) ? 0 : maze[0].length();
+        byte[] result = new byte[rows * cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                result[row * cols + col] = toTile(maze[row].charAt(col));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The tile code for the given maze character
+     */
+    private static byte toTile (char c) {
+        switch (c) {
+        case '.': return OPEN;
+        case 'X': return WALL;
+        case 'M': return MUD;
+        case 'K': return KEY;
+        case 'G': return GOAL;
+        case 'I': return INITIAL;
+        default:
+            throw new IllegalArgumentException("Maze formatted invalidly");
+        }
     }
 
 
     // Methods
     // -----------------------------------------------------------------------------
 
+    /**
+     * @return The number of rows in this maze
+     */
+    public int getRows () {
+        return this.rows;
+    }
+
+    /**
+     * @return The number of columns in this maze
+     */
+    public int getCols () {
+        return this.cols;
+    }
+
+    /**
+     * Returns the tile code (OPEN, WALL, MUD, KEY, GOAL or INITIAL) at the given position.
+     *
+     * @param col Column of the tile
+     * @param row Row of the tile
+     * @return The tile code at (col, row)
+     */
+    public byte getTile (int col, int row) {
+        return tiles[row * cols + col];
+    }
+
+    /**
+     * Changes the tile at the given position, e.g. to close a door or spread mud,
+     * and notifies every registered TileListener. Only OPEN, WALL and MUD tiles
+     * may be changed, and only to one another, since the initial state, key and
+     * goals are fixed when the maze is built. Any precomputed distances are
+     * discarded, as they may no longer be exact. Must not be called while a
+     * search is running on this maze.
+     *
+     * @param col Column of the tile
+     * @param row Row of the tile
+     * @param tile The new tile code: OPEN, WALL or MUD
+     * @throws IllegalArgumentException if either the old or the new tile is not
+     * OPEN, WALL or MUD
+     */
+    public void setTile (int col, int row, byte tile) {
+        int stateId = row * cols + col;
+        byte oldTile = tiles[stateId];
+        if (!isTerrain(oldTile) || !isTerrain(tile)) {
+            throw new IllegalArgumentException("Only OPEN, WALL and MUD tiles may be changed");
+        }
+        if (oldTile == tile) {
+            return;
+        }
+        tiles[stateId] = tile;
+        keyDistances = goalDistances = null;
+        if (tile == WALL || oldTile == WALL) {
+            // Opening or closing a cell may merge or split components
+            tileVersion++;
+        }
+        for (TileListener listener : tileListeners) {
+            listener.onTileChanged(stateId, oldTile, tile);
+        }
+    }
+
+    /**
+     * Returns whether a path connects the two given states, in O(1) amortized
+     * time, from the connected components of the maze's open cells.
+     *
+     * @param fromId id of one state
+     * @param toId id of the other state
+     * @return true if both states are open and connected
+     */
+    public boolean isConnected (int fromId, int toId) {
+        int[] labels = getComponents();
+        return tiles[fromId] != WALL && tiles[toId] != WALL && labels[fromId] == labels[toId];
+    }
+
+    /**
+     * Returns whether a path connects the two given states; see isConnected(int, int).
+     *
+     * @param from One MazeState
+     * @param to The other MazeState
+     * @return true if both states are open and connected
+     */
+    public boolean isConnected (MazeState from, MazeState to) {
+        return isConnected(getStateId(from), getStateId(to));
+    }
+
+    /**
+     * Returns whether a search from the first state can reach the second, with the
+     * semantics of the pathfinders' goFromTo: if the second state is a goal, a
+     * path to any goal will do.
+     *
+     * @param from MazeState where the search starts
+     * @param to MazeState where the search ends
+     * @return true if goFromTo may find a path between them
+     */
+    public boolean canReach (MazeState from, MazeState to) {
+        int fromId = getStateId(from);
+        return (isGoal(to)) ? isConnectedToGoal(fromId) : isConnected(fromId, getStateId(to));
+    }
+
+    /**
+     * Returns whether a path connects the given state to any goal.
+     *
+     * @param stateId id of the state
+     * @return true if some goal is connected to the state
+     */
+    public boolean isConnectedToGoal (int stateId) {
+        for (MazeState goal : GOAL_STATES) {
+            if (isConnected(stateId, getStateId(goal))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the component labels for the current tiles, relabelling them first
+     * if a wall has been added or removed since they were computed. Only one
+     * thread relabels; the others wait for it rather than relabel again, and a
+     * thread never sees a partly built array.
+     */
+    private int[] getComponents () {
+        if (componentsVersion != tileVersion) {
+            synchronized (componentsLock) {
+                int version = tileVersion;
+                if (componentsVersion != version) {
+                    components = labelComponents();
+                    componentsVersion = version;
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Labels the connected components of the open cells from scratch in a fresh
+     * array, joining every pair of horizontally or vertically adjacent open cells
+     * in a union-find forest and then labelling every cell with its root.
+     *
+     * @return The label of every cell
+     */
+    private int[] labelComponents () {
+        int[] forest = new int[rows * cols];
+        for (int id = 0; id < forest.length; id++) {
+            forest[id] = id;
+        }
+        for (int id = 0; id < forest.length; id++) {
+            if (tiles[id] == WALL) {
+                continue;
+            }
+            if (id % cols < cols - 1 && tiles[id + 1] != WALL) {
+                joinComponents(forest, id, id + 1);
+            }
+            if (id + cols < forest.length && tiles[id + cols] != WALL) {
+                joinComponents(forest, id, id + cols);
+            }
+        }
+        for (int id = 0; id < forest.length; id++) {
+            forest[id] = findComponent(forest, id);
+        }
+        return forest;
+    }
+
+    /**
+     * Joins the components of two cells in the given forest, always keeping the
+     * smaller root.
+     */
+    private static void joinComponents (int[] forest, int a, int b) {
+        int rootA = findComponent(forest, a), rootB = findComponent(forest, b);
+        if (rootA < rootB) {
+            forest[rootB] = rootA;
+        } else if (rootB < rootA) {
+            forest[rootA] = rootB;
+        }
+    }
+
+    /**
+     * Returns the root of the given cell's component, halving the path to it as
+     * it goes.
+     */
+    private static int findComponent (int[] forest, int id) {
+        while (forest[id] != id) {
+            forest[id] = forest[forest[id]];
+            id = forest[id];
+        }
+        return id;
+    }
+
+    private static boolean isTerrain (byte tile) {
+        return tile == OPEN || tile == WALL || tile == MUD;
+    }
+
+    /**
+     * Registers a TileListener to be notified of every later setTile call.
+     *
+     * @param listener The TileListener to add
+     */
+    public void addTileListener (TileListener listener) {
+        tileListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a TileListener added with addTileListener.
+     *
+     * @param listener The TileListener to remove
+     */
+    public void removeTileListener (TileListener listener) {
+        tileListeners.remove(listener);
+    }
+
+    /**
+     * Returns the state id of the given state, i.e., its grid index row * cols + col.
+     * State ids run from 0 to rows * cols - 1 and are used by the allocation-free
+     * search API (expand, getCost(int), ...).
+     *
+     * @param state A MazeState (col, row) in this maze
+     * @return The state id of that state
+     */
+    public int getStateId (MazeState state) {
+        return state.row * cols + state.col;
+    }
+
+    /**
+     * Returns the MazeState with the given state id, interned in this maze so that
+     * every call for the same id returns the same instance. States, and the pages
+     * holding them, are created on first use; since states are immutable,
+     * concurrent searches may race to create one without harm, at worst each
+     * briefly holding an equal copy.
+     *
+     * @param stateId A state id in this maze
+     * @return The MazeState (col, row) with the given state id
+     */
+    public MazeState getState (int stateId) {
+        MazeState[] page = statePages[stateId / STATE_PAGE_SIZE];
+        if (page == null) {
+            page = new MazeState[STATE_PAGE_SIZE];
+            statePages[stateId / STATE_PAGE_SIZE] = page;
+        }
+        MazeState result = page[stateId % STATE_PAGE_SIZE];
+        if (result == null) {
+            result = new MazeState(stateId % cols, stateId / cols);
+            page[stateId % STATE_PAGE_SIZE] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the MazeState interned in this maze at the given state offset by
+     * (dx, dy), or null if that position lies outside the maze.
+     *
+     * @param state A MazeState (col, row) in this maze
+     * @param dx Number of columns to move right (negative for left)
+     * @param dy Number of rows to move down (negative for up)
+     * @return The interned MazeState (col + dx, row + dy), or null if out of bounds
+     */
+    public MazeState offset (MazeState state, int dx, int dy) {
+        int col = state.col + dx, row = state.row + dy;
+        return (row >= 0 && row < rows && col >= 0 && col < cols)
+            ? getState(row * cols + col)
+            : null;
+    }
+
+    /**
+     * Returns the action String ("U", "D", "L" or "R") of a direction ordinal.
+     *
+     * @param direction One of UP, DOWN, LEFT or RIGHT
+     * @return The action String for that direction
+     */
+    public static String getAction (byte direction) {
+        return ACTIONS[direction];
+    }
+
+    /**
+     * Writes the ids of the states reachable from the given state into outNeighbors,
+     * and the direction ordinals (UP, DOWN, LEFT, RIGHT) of the actions leading to
+     * them into outActions. This is the allocation-free counterpart to getTransitions,
+     * intended for search loops that expand many states.
+     *
+     * @param stateId The id of the state to expand
+     * @param outNeighbors Array of length at least 4 that receives neighbor state ids
+     * @param outActions Array of length at least 4 that receives direction ordinals
+     * @return The number of neighbors written
+     */
+    public int expand (int stateId, int[] outNeighbors, byte[] outActions) {
+        int col = stateId % cols, row = stateId / cols, count = 0;
+        for (byte direction = 0; direction < 4; direction++) {
+            int newCol = col + COL_OFFSETS[direction], newRow = row + ROW_OFFSETS[direction];
+            if (newRow >= 0 && newRow < rows && newCol >= 0 && newCol < cols) {
+                int newId = newRow * cols + newCol;
+                if (tiles[newId] != WALL) {
+                    outNeighbors[count] = newId;
+                    outActions[count] = direction;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
     /**
      * Returns cost acquired from stepping on input MazeState
      * @param state a MazeState calculate cost of
      * @return int cost of stepping onto MazeState
      */
     public int getCost (MazeState state) {
-        return (isMudTile(state)) ? distance(this.INITIAL_STATE, state) + 2 : distance(this.INITIAL_STATE, state);
+        return getCost(getStateId(state));
+    }
+
+    /**
+     * Returns cost acquired from stepping on the state with the given id: 3 for a
+     * mud tile, and 1 for any other tile
+     * @param stateId id of the state to calculate cost of
+     * @return int cost of stepping onto that state
+     */
+    public int getCost (int stateId) {
+        return STEP_COSTS[tiles[stateId]];
+    }
+
+    /**
+     * Runs a reverse Dijkstra search from KEY_STATE and from all GOAL_STATES, and
+     * stores the resulting exact path costs so that distanceToGoal and
+     * estimateDistance return true distances instead of Manhattan estimates. Worth
+     * calling once when the same maze will be searched repeatedly; should be called
+     * before the MazeProblem is shared between threads.
+     */
+    public void precomputeDistances () {
+        int[] goalIds = new int[GOAL_STATES.size()];
+        for (int i = 0; i < goalIds.length; i++) {
+            goalIds[i] = getStateId(GOAL_STATES.get(i));
+        }
+        goalDistances = new DistanceTable(this, goalIds);
+        keyDistances = (KEY_STATE == null) ? null : new DistanceTable(this, getStateId(KEY_STATE));
+    }
+
+    /**
+     * Returns this maze's cluster abstraction for hierarchical search, building it
+     * with HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE on first use. The
+     * abstraction keeps itself up to date through setTile, and builds its clusters
+     * as searches reach them, so it must not be searched from several threads at once.
+     * @return The HierarchicalPathfinder for this maze
+     */
+    public HierarchicalPathfinder getHierarchy () {
+        if (hierarchy == null) {
+            hierarchy = new HierarchicalPathfinder(this, HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE);
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Returns an estimate of the cost of a path from one state to a target state
+     * that never overestimates: the exact cost if precomputeDistances has been
+     * called and the target is KEY_STATE, and the Manhattan distance otherwise.
+     * @param stateId id of the state to start calculation from
+     * @param targetId id of the target state
+     * @return int estimated cost, or DistanceTable.UNREACHABLE if the target is
+     * known to be unreachable from the state
+     */
+    public int estimateDistance (int stateId, int targetId) {
+        if (keyDistances != null && targetId == getStateId(KEY_STATE)) {
+            return keyDistances.get(stateId);
+        }
+        return distance(stateId, targetId);
     }
 
     /**
@@ -106,16 +603,31 @@ public class MazeProblem {
      * @return int distance to nearest goal state
      */
      public int distanceToGoal (MazeState state) {
-         int minDistance = this.rows + this.cols;
-         for ( int i = 0; i < GOAL_STATES.size(); i++) {
-             int distance = Math.abs(state.col - GOAL_STATES.get(i).col) + Math.abs(state.row - GOAL_STATES.get(i).row);
-             if ( distance < minDistance ) {
-                 minDistance = distance;
-             }
-         }
-         return minDistance;
+         return distanceToGoal(getStateId(state));
      }
 
+    /**
+     * Returns distance from the state with the given id to nearest goal state; this
+     * is the exact path cost once precomputeDistances has been called
+     * @param stateId id of the state to start calculation from
+     * @return int distance to nearest goal state, or DistanceTable.UNREACHABLE if
+     * precomputed distances show that no goal can be reached
+     */
+    public int distanceToGoal (int stateId) {
+        if (goalDistances != null) {
+            return goalDistances.get(stateId);
+        }
+        int col = stateId % cols, row = stateId / cols;
+        int minDistance = this.rows + this.cols;
+        for ( int i = 0; i < GOAL_STATES.size(); i++) {
+            int distance = Math.abs(col - GOAL_STATES.get(i).col) + Math.abs(row - GOAL_STATES.get(i).row);
+            if ( distance < minDistance ) {
+                minDistance = distance;
+            }
+        }
+        return minDistance;
+    }
+
      /**
       * Returns distance from initial state to input state
       * @param state MazeState representing where to start calculation from
@@ -125,6 +637,16 @@ public class MazeProblem {
           return Math.abs(state1.col - state2.col) + Math.abs(state1.row - state2.row);
       }
 
+    /**
+     * Returns distance between the states with the given ids
+     * @param stateId1 id of the state to start calculation from
+     * @param stateId2 id of the state to end calculation at
+     * @return int distance between the two states
+     */
+    public int distance (int stateId1, int stateId2) {
+        return Math.abs(stateId1 % cols - stateId2 % cols) + Math.abs(stateId1 / cols - stateId2 / cols);
+    }
+
     /**
      * Returns whether or not the given state is a Goal state.
      *
@@ -140,6 +662,16 @@ public class MazeProblem {
         return false;
     }
 
+    /**
+     * Returns whether or not the state with the given id is a Goal state.
+     *
+     * @param stateId id of the state to test
+     * @return Boolean of whether or not the state is a Goal.
+     */
+    public boolean isGoal (int stateId) {
+        return tiles[stateId] == GOAL;
+    }
+
     /**
      * Returns whether or not the given state is a Mud tile.
      *
@@ -147,7 +679,7 @@ public class MazeProblem {
      * @return Boolean of whether or not the given state is a Mud tile.
      */
     public boolean isMudTile (MazeState state) {
-        return ( this.maze[state.row].charAt(state.col) == 'M' );
+        return ( this.tiles[state.row * cols + state.col] == MUD );
     }
 
     /**
@@ -179,14 +711,11 @@ public class MazeProblem {
         // to see if it is a valid transition
         for (Map.Entry<String, MazeState> action : TRANS_MAP.entrySet()) {
             MazeState actionMod = action.getValue(),
-                      newState  = new MazeState(state.col, state.row);
-            newState.add(actionMod);
+                      newState  = offset(state, actionMod.col, actionMod.row);
 
             // If the given state *is* a valid transition (i.e., within
             // map bounds and no wall at the position)...
-            if (newState.row >= 0 && newState.row < rows &&
-                newState.col >= 0 && newState.col < cols &&
-                maze[newState.row].charAt(newState.col) != 'X') {
+            if (newState != null && tiles[getStateId(newState)] != WALL) {
                 // ...then add it to the result!
                 result.put(action.getKey(), newState);
             }
@@ -206,29 +735,100 @@ public class MazeProblem {
      */
     public int[] testSolution (ArrayList<String> possibleSoln) {
         // Update the "moving state" that begins at the start and is modified by the transitions
-        MazeState movingState = new MazeState(INITIAL_STATE.col, INITIAL_STATE.row);
+        MazeState movingState = INITIAL_STATE;
         int cost = 0;
-        boolean hasKey = false;
+        boolean hasKey = (KEY_STATE == null);
         int[] result = {0, -1};
 
         // For each action, modify the movingState, and then check that we have landed in
         // a legal position in this maze
         for (String action : possibleSoln) {
             MazeState actionMod = TRANS_MAP.get(action);
-            movingState.add(actionMod);
-            switch (maze[movingState.row].charAt(movingState.col)) {
-            case 'X':
+            movingState = offset(movingState, actionMod.col, actionMod.row);
+            if (movingState == null) {
+                return result;
+            }
+            switch (tiles[movingState.row * cols + movingState.col]) {
+            case WALL:
                 return result;
-            case 'K':
+            case KEY:
                 hasKey = true; break;
             }
-            cost += getCost(movingState);
+            cost += STEP_COSTS[tiles[getStateId(movingState)]];
         }
         result[0] = isGoal(movingState) && hasKey ? 1 : 0;
         result[1] = cost;
         return result;
     }
 
+    /**
+     * Given a possible tour, tests that it starts at the initial state, passes
+     * through every one of the given waypoints in any order, and ends at a goal,
+     * as well as returning the cost.
+     *
+     * @param possibleTour A possible tour to test, which is a list of actions of the
+     * format: ["U", "D", "D", "L", ...]
+     * @param waypoints The MazeStates the tour must pass through, e.g. KEY_STATES
+     * @return A 2-element array of ints of the format [isSoln, cost], as for testSolution
+     */
+    public int[] testTour (ArrayList<String> possibleTour, List<MazeState> waypoints) {
+        StateSet remaining = new StateSet(this);
+        for (MazeState waypoint : waypoints) {
+            remaining.add(waypoint);
+        }
+        MazeState movingState = INITIAL_STATE;
+        remaining.remove(movingState);
+        int cost = 0;
+        int[] result = {0, -1};
+
+        for (String action : possibleTour) {
+            MazeState actionMod = TRANS_MAP.get(action);
+            movingState = offset(movingState, actionMod.col, actionMod.row);
+            if (movingState == null || tiles[getStateId(movingState)] == WALL) {
+                return result;
+            }
+            remaining.remove(movingState);
+            cost += STEP_COSTS[tiles[getStateId(movingState)]];
+        }
+        result[0] = isGoal(movingState) && remaining.isEmpty() ? 1 : 0;
+        result[1] = cost;
+        return result;
+    }
+
+    /**
+     * Tests a possible solution given as a PathEncoding, as testSolution does for a
+     * list of actions, decoding one move at a time without building any Strings.
+     *
+     * @param possibleSoln A possible solution to test
+     * @return A 2-element array of ints of the format [isSoln, cost], as for testSolution
+     */
+    public int[] testSolution (PathEncoding possibleSoln) {
+        int col = INITIAL_STATE.col, row = INITIAL_STATE.row;
+        int cost = 0;
+        boolean hasKey = (KEY_STATE == null);
+        int[] result = {0, -1};
+
+        for (PrimitiveIterator.OfInt moves = possibleSoln.moves(); moves.hasNext();) {
+            int direction = moves.nextInt();
+            col += COL_OFFSETS[direction];
+            row += ROW_OFFSETS[direction];
+            if (row < 0 || row >= rows || col < 0 || col >= cols) {
+                return result;
+            }
+            byte tile = tiles[row * cols + col];
+            switch (tile) {
+            case WALL:
+                return result;
+            case KEY:
+                hasKey = true; break;
+            }
+            cost += STEP_COSTS[tile];
+        }
+        result[0] = isGoal(row * cols + col) && hasKey ? 1 : 0;
+        result[1] = cost;
+        return result;
+    }
+
 
     public static void main(String args[]) {
         String[] maze = {
@@ -2,11 +2,12 @@
 
 /**
  * Maze Pathfinding representation of a given state, i.e., an occupiable position
- * in the given maze.
+ * in the given maze. MazeStates are immutable, so a single instance may be shared
+ * freely between searches, including searches running on different threads.
  */
 public class MazeState {
 
-    public int col, row;
+    public final int col, row;
 
     /**
      * Constructs a new MazeState, which tracks the given row and column that it
@@ -21,13 +22,45 @@ public class MazeState {
     }
 
     /**
-     * [Mutator] Adds the coordinates of the given other MazeState to this one's; useful
-     * for computing offsets given in MazeProblem transitions.
-     * @param other The other MazeState to add to this one.
+     * Packs this state into a single long, with the column in the high 32 bits
+     * and the row in the low 32 bits, so that hash tables and memo tables can
+     * be keyed on a primitive rather than on MazeState objects.
+     * @return The packed encoding of this state
      */
-    public void add (MazeState other) {
-        this.col += other.col;
-        this.row += other.row;
+    public long pack () {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Inverse of pack. The result is a new instance; for the one interned in a
+     * particular maze, see MazeProblem.getState.
+     * @param packed A state encoding produced by pack
+     * @return A MazeState (col, row) equal to the packed state
+     */
+    public static MazeState unpack (long packed) {
+        return new MazeState((int) (packed >> 32), (int) packed);
+    }
+
+    /**
+     * Returns the state offset from this one by the given amounts; useful for
+     * computing offsets given in MazeProblem transitions. This state is unchanged.
+     * For an instance interned in a particular maze, see MazeProblem.getState.
+     * @param dx Number of columns to move right (negative for left)
+     * @param dy Number of rows to move down (negative for up)
+     * @return The MazeState (col + dx, row + dy)
+     */
+    public MazeState offset (int dx, int dy) {
+        return new MazeState(col + dx, row + dy);
+    }
+
+    /**
+     * Returns the state offset from this one by the coordinates of the given other
+     * MazeState, as given in MazeProblem transitions. This state is unchanged.
+     * @param other The offset to add to this state's coordinates
+     * @return The MazeState (col + other.col, row + other.row)
+     */
+    public MazeState offset (MazeState other) {
+        return offset(other.col, other.row);
     }
 
     @Override
@@ -39,7 +72,10 @@ public class MazeState {
 
     @Override
     public int hashCode () {
-        return row * col;
+        // Distinct for every state with 0 <= col, row < 65536, unlike row * col,
+        // which sent all of row 0 and column 0 (and every transposed pair) to
+        // the same bucket
+        return (col << 16) ^ row;
     }
 
     public String toString () {
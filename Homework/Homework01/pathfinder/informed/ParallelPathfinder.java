@@ -0,0 +1,487 @@
+// package pathfinder.informed;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maze Pathfinding algorithm that implements Hash Distributed A* (HDA*), which
+ * spreads a single search over several threads. Every state is owned by one
+ * worker, chosen by hashing the block of the maze it lies in; each worker keeps
+ * the open list of the states it owns and is the only thread to read or write
+ * their path costs. A worker expands its own best state and sends each
+ * successor to its owner's inbox, a lock-free multi-producer, single-consumer
+ * queue, in batches; successors it owns itself skip the queue. Hashing whole
+ * blocks rather than single cells keeps most successors with the worker that
+ * generated them.
+ *
+ * States may be expanded more than once, since workers run ahead of one another,
+ * but the search only ends once no open list holds a state that could lead to a
+ * path cheaper than the best one found, and no message is in flight, so the
+ * path returned is as cheap as Pathfinder.goFromTo's (if not always the same
+ * one among equally cheap paths).
+ */
+public class ParallelPathfinder implements AutoCloseable {
+
+    // Side of the square blocks of cells hashed to the same worker
+    private static final int BLOCK_SIZE = 8;
+
+    // Messages a worker buffers for each other worker before sending them, and
+    // states it expands between checks of its inbox
+    private static final int BATCH_SIZE = 128, EXPANSIONS_PER_POLL = 64;
+
+    // Incumbent value before any path to the target has been found
+    private static final long NO_PATH = Long.MAX_VALUE;
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeProblem problem;
+    private final ExecutorService pool;
+    private final int threads;
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new ParallelPathfinder for the given MazeProblem, with one
+     * worker per available processor.
+     *
+     * @param problem The MazeProblem every search will run on
+     */
+    ParallelPathfinder (MazeProblem problem) {
+        this(problem, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new ParallelPathfinder for the given MazeProblem.
+     *
+     * @param problem The MazeProblem every search will run on
+     * @param threads Number of worker threads each search is spread over
+     */
+    ParallelPathfinder (MazeProblem problem, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.problem = problem;
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "hda-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * as Pathfinder.goFromTo does, found by all of this pathfinder's workers.
+     * Every search occupies all of the workers, each waiting on the others, so
+     * searches from several threads take turns rather than share the pool.
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to; if it is a goal,
+     * the path may end at any goal
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public synchronized ArrayList<String> goFromTo (MazeState startState, MazeState endState) {
+        if (!problem.canReach(startState, endState)) {
+            return null;
+        }
+        Search search = new Search(problem.getStateId(startState), problem.getStateId(endState), problem.isGoal(endState));
+        List<Callable<Void>> tasks = new ArrayList<>(threads);
+        for (Worker worker : search.workers) {
+            tasks.add(() -> {
+                try {
+                    worker.run();
+                } finally {
+                    // A worker that fails must not leave the others waiting on it
+                    search.done = true;
+                }
+                return null;
+            });
+        }
+        try {
+            // Completing every task orders each worker's writes to the shared
+            // arrays before the path is read from them
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search worker failed", e.getCause());
+        }
+        return search.buildPath();
+    }
+
+    /**
+     * Given a MazeProblem, returns a solution to the problem as a sequence of actions
+     * that leads from the initial state, through the key, to a goal, using HDA*
+     * over one worker per available processor for both legs. Each call starts
+     * and shuts down a pool of its own, a thread start per worker, which can cost
+     * more than the search itself on a small maze; callers solving often should
+     * construct one ParallelPathfinder per maze and reuse it.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve (MazeProblem problem) {
+        if (!Pathfinder.isSolvable(problem)) {
+            return null;
+        }
+        try (ParallelPathfinder pathfinder = new ParallelPathfinder(problem)) {
+            return pathfinder.solve();
+        }
+    }
+
+    /**
+     * Solves this pathfinder's MazeProblem, as in solve(problem), over its workers.
+     *
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public ArrayList<String> solve () {
+        if (!Pathfinder.isSolvable(problem)) {
+            return null;
+        }
+        if (problem.KEY_STATE == null) {
+            return goFromTo( problem.INITIAL_STATE, problem.GOAL_STATES.get(0) );
+        }
+        ArrayList<String> keyPath = goFromTo( problem.INITIAL_STATE, problem.KEY_STATE );
+        if (keyPath == null) {
+            return null;
+        }
+        ArrayList<String> goalPath = goFromTo( problem.KEY_STATE, problem.GOAL_STATES.get(0) );
+        if (goalPath == null) {
+            return null;
+        }
+        keyPath.addAll( goalPath );
+        return keyPath;
+    }
+
+    /**
+     * Shuts down this pathfinder's worker threads.
+     */
+    @Override
+    public void close () {
+        pool.shutdown();
+    }
+
+    /**
+     * State shared by the workers of a single search. Each entry of the per-state
+     * arrays is only ever touched by the worker that owns that state.
+     */
+    private class Search {
+
+        final int startId, endId, cols;
+        final boolean lookingForGoal;
+        final Worker[] workers;
+        // Best known path cost of each state, the direction ordinal of the move
+        // leading to it, and its estimate, or -1 if not yet computed
+        final int[] pathCosts, estimates;
+        final byte[] moves;
+        // Cost of the best path found to a target in the high 32 bits, and the
+        // target's id in the low 32 bits
+        final AtomicLong incumbent = new AtomicLong(NO_PATH);
+        // Batches sent but not yet received
+        final AtomicLong inFlight = new AtomicLong();
+        volatile boolean done;
+
+        Search (int startId, int endId, boolean lookingForGoal) {
+            int size = problem.getRows() * problem.getCols();
+            this.startId = startId;
+            this.endId = endId;
+            this.cols = problem.getCols();
+            this.lookingForGoal = lookingForGoal;
+            this.pathCosts = new int[size];
+            this.estimates = new int[size];
+            this.moves = new byte[size];
+            Arrays.fill(pathCosts, Integer.MAX_VALUE);
+            Arrays.fill(estimates, -1);
+            this.workers = new Worker[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Worker(this, i);
+            }
+            workers[owner(startId)].relax(startId, 0, (byte) -1);
+        }
+
+        /**
+         * @return The index of the worker that owns the given state
+         */
+        int owner (int stateId) {
+            int block = (stateId / cols / BLOCK_SIZE) * 0x10001 + (stateId % cols / BLOCK_SIZE);
+            int hash = block * 0x9E3779B9;
+            return (int) (((hash ^ (hash >>> 16)) & 0xFFFFFFFFL) * threads >>> 32);
+        }
+
+        int bestCost () {
+            return (int) (incumbent.get() >>> 32);
+        }
+
+        void offerIncumbent (int pathCost, int stateId) {
+            long offer = ((long) pathCost << 32) | stateId;
+            long current;
+            do {
+                current = incumbent.get();
+            } while (offer < current && !incumbent.compareAndSet(current, offer));
+        }
+
+        boolean isTarget (int stateId) {
+            return (lookingForGoal) ? problem.isGoal(stateId) : stateId == endId;
+        }
+
+        /**
+         * Returns whether every worker is idle and no batch is in flight, i.e.,
+         * the search is over. Every worker must be seen idle, with no activations
+         * in between, on both sides of reading the in-flight count: a worker only
+         * leaves idle on receiving a batch, so if none did then and nothing was in
+         * flight, none ever will.
+         */
+        boolean isQuiescent () {
+            long[] activations = new long[workers.length];
+            for (int i = 0; i < workers.length; i++) {
+                if (!workers[i].idle) {
+                    return false;
+                }
+                activations[i] = workers[i].activations;
+            }
+            if (inFlight.get() != 0) {
+                return false;
+            }
+            for (int i = 0; i < workers.length; i++) {
+                if (!workers[i].idle || workers[i].activations != activations[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Walks the recorded moves back from the target to the start.
+         */
+        ArrayList<String> buildPath () {
+            long best = incumbent.get();
+            if (best == NO_PATH) {
+                return null;
+            }
+            int targetId = (int) best;
+            int length = 0;
+            for (int id = targetId; id != startId; id = parentOf(id)) {
+                length++;
+            }
+            String[] path = new String[length];
+            for (int id = targetId; id != startId; id = parentOf(id)) {
+                path[--length] = MazeProblem.getAction(moves[id]);
+            }
+            return new ArrayList<>(Arrays.asList(path));
+        }
+
+        /**
+         * @return The state the recorded move into the given state was made from
+         */
+        int parentOf (int stateId) {
+            switch (moves[stateId]) {
+            case MazeProblem.UP:   return stateId + cols;
+            case MazeProblem.DOWN: return stateId - cols;
+            case MazeProblem.LEFT: return stateId + 1;
+            default:               return stateId - 1;
+            }
+        }
+
+    }
+
+    /**
+     * One worker of a search: its open list of the states it owns, its inbox, and
+     * its outgoing batches to every other worker. A message packs a state id, the
+     * cost of a path to it and the direction of the move that path ends with.
+     */
+    private class Worker {
+
+        final Search search;
+        final int index;
+        final ConcurrentLinkedQueue<long[]> inbox = new ConcurrentLinkedQueue<>();
+        final long[][] outgoing;
+        final int[] outgoingCounts;
+        // Open list of (priority << 32 | state id); entries superseded by a
+        // cheaper path are skipped when polled rather than removed
+        long[] open = new long[1024];
+        int openSize;
+        final int[] neighbors = new int[4];
+        final byte[] actions = new byte[4];
+
+        volatile boolean idle;
+        volatile long activations;
+
+        Worker (Search search, int index) {
+            this.search = search;
+            this.index = index;
+            this.outgoing = new long[threads][BATCH_SIZE];
+            this.outgoingCounts = new int[threads];
+        }
+
+        void run () {
+            while (!search.done) {
+                receive();
+                int expanded = 0;
+                while (expanded < EXPANSIONS_PER_POLL && expandNext()) {
+                    expanded++;
+                }
+                if (expanded > 0 || flush()) {
+                    continue;
+                }
+                idle = true;
+                if (search.isQuiescent()) {
+                    search.done = true;
+                } else if (inbox.isEmpty()) {
+                    Thread.yield();
+                }
+            }
+        }
+
+        /**
+         * Takes every batch in the inbox, relaxing each state it holds.
+         */
+        void receive () {
+            long[] batch;
+            while ((batch = inbox.poll()) != null) {
+                if (idle) {
+                    // Announce the activation before the batch stops counting as
+                    // in flight
+                    activations++;
+                    idle = false;
+                }
+                for (long message : batch) {
+                    relax((int) (message >>> 2) & Integer.MAX_VALUE, (int) (message >>> 33), (byte) (message & 3));
+                }
+                search.inFlight.decrementAndGet();
+            }
+        }
+
+        /**
+         * Records a path to a state this worker owns, if it is the cheapest yet,
+         * and adds the state to the open list.
+         */
+        void relax (int stateId, int pathCost, byte move) {
+            if (pathCost >= search.pathCosts[stateId]) {
+                return;
+            }
+            int estimate = search.estimates[stateId];
+            if (estimate == -1) {
+                estimate = (search.lookingForGoal) ? problem.distanceToGoal(stateId) : problem.estimateDistance(stateId, search.endId);
+                search.estimates[stateId] = estimate;
+            }
+            if (estimate == DistanceTable.UNREACHABLE) {
+                return;
+            }
+            search.pathCosts[stateId] = pathCost;
+            search.moves[stateId] = move;
+            if (search.isTarget(stateId)) {
+                search.offerIncumbent(pathCost, stateId);
+            }
+            push(((long) (pathCost + estimate) << 32) | stateId);
+        }
+
+        /**
+         * Expands the best state on the open list, unless it cannot lead to a path
+         * cheaper than the best found.
+         *
+         * @return false if there was nothing worth expanding
+         */
+        boolean expandNext () {
+            while (openSize > 0) {
+                long top = open[0];
+                int stateId = (int) top, priority = (int) (top >>> 32);
+                if (priority != search.pathCosts[stateId] + search.estimates[stateId]) {
+                    pop();
+                    continue;
+                }
+                if (priority >= search.bestCost()) {
+                    return false;
+                }
+                pop();
+                int pathCost = search.pathCosts[stateId];
+                int count = problem.expand(stateId, neighbors, actions);
+                for (int i = 0; i < count; i++) {
+                    int nextId = neighbors[i];
+                    int nextCost = pathCost + problem.getCost(nextId);
+                    int owner = search.owner(nextId);
+                    if (owner == index) {
+                        relax(nextId, nextCost, actions[i]);
+                    } else {
+                        send(owner, ((long) nextCost << 33) | ((long) nextId << 2) | actions[i]);
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+
+        void send (int owner, long message) {
+            outgoing[owner][outgoingCounts[owner]++] = message;
+            if (outgoingCounts[owner] == BATCH_SIZE) {
+                sendBatch(owner);
+            }
+        }
+
+        /**
+         * Sends every partly filled batch.
+         *
+         * @return Whether any batch was sent
+         */
+        boolean flush () {
+            boolean sent = false;
+            for (int owner = 0; owner < threads; owner++) {
+                if (outgoingCounts[owner] > 0) {
+                    sendBatch(owner);
+                    sent = true;
+                }
+            }
+            return sent;
+        }
+
+        void sendBatch (int owner) {
+            // Counted as in flight before it can be received
+            search.inFlight.incrementAndGet();
+            search.workers[owner].inbox.offer(Arrays.copyOf(outgoing[owner], outgoingCounts[owner]));
+            outgoingCounts[owner] = 0;
+        }
+
+        void push (long entry) {
+            if (openSize == open.length) {
+                open = Arrays.copyOf(open, 2 * openSize);
+            }
+            int slot = openSize++;
+            while (slot > 0) {
+                int parent = (slot - 1) >>> 1;
+                if (open[parent] <= entry) {
+                    break;
+                }
+                open[slot] = open[parent];
+                slot = parent;
+            }
+            open[slot] = entry;
+        }
+
+        void pop () {
+            long last = open[--openSize];
+            int slot = 0, half = openSize >>> 1;
+            while (slot < half) {
+                int child = 2 * slot + 1;
+                if (child + 1 < openSize && open[child + 1] < open[child]) {
+                    child++;
+                }
+                if (last <= open[child]) {
+                    break;
+                }
+                open[slot] = open[child];
+                slot = child;
+            }
+            open[slot] = last;
+        }
+
+    }
+
+}
@@ -0,0 +1,238 @@
+// package pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Bounded cache of the paths returned by Pathfinder.goFromTo, keyed on the maze,
+ * start and end of each query, that evicts the least recently used path once it
+ * is full. Targets that many queries share can instead be registered with
+ * addTarget, which runs one reverse Dijkstra search from the target and answers
+ * every later query to it from the resulting DistanceTable. Everything cached
+ * for a maze is dropped when MazeProblem.setTile changes one of its tiles. All
+ * methods are safe to call from multiple threads.
+ */
+public class PathCache {
+
+    // Key standing for every goal of a maze, since goFromTo treats any goal as
+    // reaching the end when the end is a goal
+    private static final int ANY_GOAL = -1;
+
+    // Cached value standing for a query with no path
+    private static final ArrayList<String> NO_PATH = new ArrayList<>(0);
+
+    /**
+     * A query as the cache sees it: the maze it runs on, compared by identity,
+     * and the ids of its start and end.
+     */
+    private static final class Key {
+
+        final MazeProblem problem;
+        final int startId, endId;
+
+        Key (MazeProblem problem, int startId, int endId) {
+            this.problem = problem;
+            this.startId = startId;
+            this.endId = endId;
+        }
+
+        @Override
+        public boolean equals (Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return problem == key.problem && startId == key.startId && endId == key.endId;
+        }
+
+        @Override
+        public int hashCode () {
+            return (System.identityHashCode(problem) * 31 + startId) * 31 + endId;
+        }
+
+    }
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final int capacity;
+    private final LinkedHashMap<Key, ArrayList<String>> paths;
+    // Registered targets, keyed with ANY_GOAL in place of the start
+    private final Map<Key, DistanceTable> targets = new HashMap<>();
+    // Mazes with anything cached, each with the TileListener that invalidates it
+    private final Map<MazeProblem, TileListener> watched = new IdentityHashMap<>();
+    private long hits, misses, evictions;
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new, empty PathCache.
+     *
+     * @param capacity Maximum number of paths to keep
+     */
+    PathCache (int capacity) {
+        this.capacity = capacity;
+        this.paths = new LinkedHashMap<Key, ArrayList<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<Key, ArrayList<String>> eldest) {
+                if (size() > PathCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * as Pathfinder.goFromTo does, searching only if the answer is not already
+     * cached or the end has not been registered with addTarget.
+     *
+     * @param startState MazeState representing state where to navigate from
+     * @param endState MazeState representing state needed to navigate to
+     * @param problem MazeProblem representing maze to search for state in
+     * @return ArrayList<String> path leading to input state, or null if there is
+     * none; the list is the caller's own to modify
+     */
+    public ArrayList<String> goFromTo (MazeState startState, MazeState endState, MazeProblem problem) {
+        Key key = new Key(problem, problem.getStateId(startState), endKey(endState, problem));
+        DistanceTable table;
+        synchronized (this) {
+            ArrayList<String> cached = paths.get(key);
+            table = targets.get(new Key(problem, ANY_GOAL, key.endId));
+            if (cached != null || table != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+            if (cached != null) {
+                return (cached == NO_PATH) ? null : new ArrayList<>(cached);
+            }
+        }
+        if (table != null) {
+            return table.pathFrom(startState);
+        }
+
+        ArrayList<String> path = Pathfinder.goFromTo(startState, endState, problem);
+        synchronized (this) {
+            watch(problem);
+            paths.put(key, (path == null) ? NO_PATH : new ArrayList<>(path));
+        }
+        return path;
+    }
+
+    /**
+     * Registers the given state as a popular target: runs one reverse Dijkstra
+     * search out from it, after which every goFromTo query ending there is answered
+     * without searching and without taking up room among the cached paths. As in
+     * goFromTo, registering a goal registers every goal of the maze.
+     *
+     * @param endState MazeState representing the target
+     * @param problem MazeProblem representing maze the target is in
+     * @return The DistanceTable of paths to the target
+     */
+    public DistanceTable addTarget (MazeState endState, MazeProblem problem) {
+        Key key = new Key(problem, ANY_GOAL, endKey(endState, problem));
+        synchronized (this) {
+            DistanceTable table = targets.get(key);
+            if (table != null) {
+                return table;
+            }
+        }
+        DistanceTable table;
+        if (key.endId == ANY_GOAL) {
+            int[] goalIds = new int[problem.GOAL_STATES.size()];
+            for (int i = 0; i < goalIds.length; i++) {
+                goalIds[i] = problem.getStateId(problem.GOAL_STATES.get(i));
+            }
+            table = new DistanceTable(problem, goalIds);
+        } else {
+            table = new DistanceTable(problem, key.endId);
+        }
+        synchronized (this) {
+            watch(problem);
+            targets.putIfAbsent(key, table);
+            return targets.get(key);
+        }
+    }
+
+    /**
+     * Empties the cache of every path and registered target, and resets its metrics.
+     */
+    public synchronized void clear () {
+        for (Map.Entry<MazeProblem, TileListener> entry : watched.entrySet()) {
+            entry.getKey().removeTileListener(entry.getValue());
+        }
+        watched.clear();
+        paths.clear();
+        targets.clear();
+        hits = misses = evictions = 0;
+    }
+
+    /**
+     * @return The number of paths currently cached
+     */
+    public synchronized int size () {
+        return paths.size();
+    }
+
+    /**
+     * @return The number of queries answered without searching
+     */
+    public synchronized long getHits () {
+        return hits;
+    }
+
+    /**
+     * @return The number of queries that had to be searched
+     */
+    public synchronized long getMisses () {
+        return misses;
+    }
+
+    /**
+     * @return The number of paths evicted to stay within capacity
+     */
+    public synchronized long getEvictions () {
+        return evictions;
+    }
+
+    /**
+     * @return The fraction of queries answered without searching, or 0 if there
+     * have been none
+     */
+    public synchronized double getHitRate () {
+        long total = hits + misses;
+        return (total == 0) ? 0 : (double) hits / total;
+    }
+
+    public synchronized String toString () {
+        return "PathCache[size=" + paths.size() + ", targets=" + targets.size()
+            + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    /**
+     * Registers a TileListener with the given maze, unless one already is, that
+     * drops everything cached for the maze when one of its tiles changes.
+     */
+    private void watch (MazeProblem problem) {
+        if (!watched.containsKey(problem)) {
+            TileListener listener = (stateId, oldTile, newTile) -> invalidate(problem);
+            watched.put(problem, listener);
+            problem.addTileListener(listener);
+        }
+    }
+
+    private synchronized void invalidate (MazeProblem problem) {
+        paths.keySet().removeIf(key -> key.problem == problem);
+        targets.keySet().removeIf(key -> key.problem == problem);
+    }
+
+    private static int endKey (MazeState endState, MazeProblem problem) {
+        return problem.isGoal(endState) ? ANY_GOAL : problem.getStateId(endState);
+    }
+
+}
@@ -0,0 +1,235 @@
+// package pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Compact encoding of a path as a sequence of moves packed four to a byte, two
+ * bits per move holding its direction ordinal (MazeProblem.UP, DOWN, LEFT or
+ * RIGHT), rather than one String object per step. Moves are packed from the
+ * low bits of each byte up. PathEncodings are immutable; build one with a
+ * Builder, from a list of actions, or straight from a search tree.
+ */
+public class PathEncoding {
+
+    private static final String DIRECTIONS = "UDLR";
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final byte[] packed;
+    private final int length;
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a PathEncoding over the given packed moves.
+     *
+     * @param packed Moves packed four to a byte, as returned by toByteArray; not copied
+     * @param length Number of moves in the path
+     */
+    PathEncoding (byte[] packed, int length) {
+        if (packed.length < (length + 3) / 4) {
+            throw new IllegalArgumentException("Packed array too short for " + length + " moves");
+        }
+        this.packed = packed;
+        this.length = length;
+    }
+
+    /**
+     * Encodes the given list of actions.
+     *
+     * @param actions Actions of the format ["U", "D", "D", "L", ...]
+     * @return The PathEncoding of the actions
+     * @throws IllegalArgumentException if any action is not U, D, L or R
+     */
+    public static PathEncoding of (List<String> actions) {
+        Builder builder = new Builder(actions.size());
+        for (String action : actions) {
+            int direction = (action.length() == 1) ? DIRECTIONS.indexOf(action.charAt(0)) : -1;
+            if (direction == -1) {
+                throw new IllegalArgumentException("Unknown action: " + action);
+            }
+            builder.add((byte) direction);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Encodes the path to the given state from a search tree recorded as arrays
+     * indexed by state id (see Pathfinder.buildPath), without building any Strings.
+     *
+     * @param parents Each state's parent, or -1 for the root
+     * @param moves The direction ordinal of the move leading to each state
+     * @param endId id of the state to encode the path to
+     * @return The PathEncoding of the moves leading from the root to the given state
+     */
+    public static PathEncoding fromSearchTree (int[] parents, byte[] moves, int endId) {
+        int length = 0;
+        for (int id = endId; parents[id] != -1; id = parents[id]) {
+            length++;
+        }
+        byte[] packed = new byte[(length + 3) / 4];
+        int i = length;
+        for (int id = endId; parents[id] != -1; id = parents[id]) {
+            i--;
+            packed[i >> 2] |= moves[id] << ((i & 3) << 1);
+        }
+        return new PathEncoding(packed, length);
+    }
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * @return The number of moves in the path
+     */
+    public int length () {
+        return length;
+    }
+
+    /**
+     * Returns the direction ordinal of the move at the given index.
+     *
+     * @param index Index of the move, from 0 to length() - 1
+     * @return MazeProblem.UP, DOWN, LEFT or RIGHT
+     */
+    public byte get (int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Move " + index + " of " + length);
+        }
+        return (byte) ((packed[index >> 2] >> ((index & 3) << 1)) & 3);
+    }
+
+    /**
+     * Returns an iterator over the direction ordinals of the moves, in order,
+     * which decodes one move at a time without boxing.
+     *
+     * @return A PrimitiveIterator over the moves' direction ordinals
+     */
+    public PrimitiveIterator.OfInt moves () {
+        return new PrimitiveIterator.OfInt() {
+            private int index;
+
+            @Override
+            public boolean hasNext () {
+                return index < length;
+            }
+
+            @Override
+            public int nextInt () {
+                if (index >= length) {
+                    throw new NoSuchElementException();
+                }
+                int move = (packed[index >> 2] >> ((index & 3) << 1)) & 3;
+                index++;
+                return move;
+            }
+        };
+    }
+
+    /**
+     * @return A copy of the moves, packed four to a byte
+     */
+    public byte[] toByteArray () {
+        return Arrays.copyOf(packed, (length + 3) / 4);
+    }
+
+    /**
+     * Decodes the path into a list of actions, as returned by Pathfinder.solve.
+     *
+     * @return An ArrayList of Strings of the format ["R", "R", "L", ...]
+     */
+    public ArrayList<String> toList () {
+        ArrayList<String> result = new ArrayList<>(length);
+        for (PrimitiveIterator.OfInt moves = moves(); moves.hasNext();) {
+            result.add(MazeProblem.getAction((byte) moves.nextInt()));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals (Object other) {
+        if (!(other instanceof PathEncoding) || ((PathEncoding) other).length != length) {
+            return false;
+        }
+        PathEncoding encoding = (PathEncoding) other;
+        for (int i = 0; i < length; i++) {
+            if (get(i) != encoding.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode () {
+        int result = length;
+        for (int i = 0; i < length; i++) {
+            result = 31 * result + get(i);
+        }
+        return result;
+    }
+
+    public String toString () {
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            result.append(DIRECTIONS.charAt(get(i)));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Accumulates moves into a PathEncoding, growing its packed array as needed.
+     */
+    public static class Builder {
+
+        private byte[] packed;
+        private int length;
+
+        /**
+         * Constructs a new, empty Builder with room for the given number of moves.
+         *
+         * @param capacity Number of moves expected
+         */
+        public Builder (int capacity) {
+            packed = new byte[Math.max((capacity + 3) / 4, 1)];
+        }
+
+        /**
+         * Appends a move.
+         *
+         * @param direction Direction ordinal of the move: MazeProblem.UP, DOWN, LEFT or RIGHT
+         * @return This Builder
+         */
+        public Builder add (byte direction) {
+            if ((length >> 2) == packed.length) {
+                packed = Arrays.copyOf(packed, 2 * packed.length);
+            }
+            packed[length >> 2] |= (direction & 3) << ((length & 3) << 1);
+            length++;
+            return this;
+        }
+
+        /**
+         * Appends every move of the given path.
+         *
+         * @param path The PathEncoding to append
+         * @return This Builder
+         */
+        public Builder addAll (PathEncoding path) {
+            for (PrimitiveIterator.OfInt moves = path.moves(); moves.hasNext();) {
+                add((byte) moves.nextInt());
+            }
+            return this;
+        }
+
+        /**
+         * @return A PathEncoding of the moves appended so far
+         */
+        public PathEncoding build () {
+            return new PathEncoding(Arrays.copyOf(packed, (length + 3) / 4), length);
+        }
+
+    }
+
+}
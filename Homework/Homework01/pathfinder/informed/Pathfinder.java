@@ -14,51 +14,51 @@ public class Pathfinder {
      * @param MazeState representing state where to navigate from
      * @param MazeState representing state needed to navigate to
      * @param MazeProblem representing maze to search for state in
-     * @return ArrayList<String> path leading to input state
+     * @return ArrayList<String> path leading to input state, or null if there is none
      */
     public static ArrayList<String> goFromTo(MazeState startState, MazeState endState, MazeProblem problem) {
-        PriorityQueue<SearchTreeNode> frontier = new PriorityQueue<>(5 , new SearchTreeNodeComparator());
-        ArrayList<MazeState> frontierStates = new ArrayList<>();
-        ArrayList<String> result = new ArrayList<>();
-        Map<String, MazeState> transitions;
-        ArrayList<MazeState> visitedStates = new ArrayList<>();
-        SearchTreeNode currentNode;
-        boolean lookingForGoal = problem.isGoal(endState);
-
-        int heuristic = (lookingForGoal) ? problem.distanceToGoal( startState ) : problem.distance( startState , endState );
-        frontier.add( new SearchTreeNode( startState, null, null, heuristic) );
-        frontierStates.add( frontier.peek().state );
-        System.out.println( "frontier: " + frontier );
-
-        int i = 0;
-        while (true) {
-
-            currentNode = frontier.poll();
-            visitedStates.add(currentNode.state);
-
-            System.out.println( "\ncurrentNode: " + currentNode );
-
-            boolean finished = (lookingForGoal) ? problem.isGoal(currentNode.state) : currentNode.state.equals(endState);
-            if ( finished ) {
-                return buildPath(currentNode);
-            }
+        return goFromTo(startState, endState, problem, SearchListener.NONE);
+    }
 
-            transitions = problem.getTransitions(currentNode.state);
-            for (Map.Entry<String, MazeState> action : transitions.entrySet()) {
-                heuristic = (lookingForGoal) ? problem.getCost(action.getValue()) + problem.distanceToGoal(action.getValue()) : problem.getCost(action.getValue()) + problem.distance( action.getValue() , endState );
-                SearchTreeNode newNode = new SearchTreeNode(action.getValue(), action.getKey(), currentNode, heuristic);
-                System.out.println("Looking at transition: " + action.getValue() + " inVisited: " + !visitedStates.contains(newNode.state) + " inFrontier: " + !frontierStates.contains(newNode.state) );
-                if ( !visitedStates.contains(newNode.state) && !frontierStates.contains(newNode.state)) {
-                    System.out.println( "Adding " + action.getValue() + " with g(n) " +  problem.getCost(action.getValue()) + " and h(n) " +  problem.distance( action.getValue() , endState ) );
-                    frontier.add( newNode );
-                    frontierStates.add( newNode.state );
-                }
-            }
-            System.out.println( "frontier: " + frontier );
-            System.out.println( "frontierState: " + frontierStates );
-            i++;
-        }
-        // return result;
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * reporting the progress of the search to the given listener
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to
+     * @param MazeProblem representing maze to search for state in
+     * @param SearchListener notified of each expansion, enqueue and the goal
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public static ArrayList<String> goFromTo(MazeState startState, MazeState endState, MazeProblem problem, SearchListener listener) {
+        return goFromTo(startState, endState, problem, listener, problem);
+    }
+
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * ordering the frontier by the given Heuristic and reporting the progress of
+     * the search to the given listener
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to
+     * @param MazeProblem representing maze to search for state in
+     * @param SearchListener notified of each expansion, enqueue and the goal
+     * @param Heuristic estimating the remaining cost; the MazeProblem itself by default
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public static ArrayList<String> goFromTo(MazeState startState, MazeState endState, MazeProblem problem, SearchListener listener, Heuristic heuristic) {
+        return new SearchWorkspace(problem).goFromTo(startState, endState, listener, heuristic);
+    }
+
+    /**
+     * Returns the steps to take from first input state to second input state as
+     * a PathEncoding, packed straight from the search tree without building any
+     * Strings.
+     * @param MazeState representing state where to navigate from
+     * @param MazeState representing state needed to navigate to
+     * @param MazeProblem representing maze to search for state in
+     * @return PathEncoding of the path leading to input state, or null if there is none
+     */
+    public static PathEncoding goFromToEncoded(MazeState startState, MazeState endState, MazeProblem problem) {
+        return new SearchWorkspace(problem).goFromToEncoded(startState, endState);
     }
 
     /**
@@ -68,11 +68,147 @@ public class Pathfinder {
      *
      * @param problem A MazeProblem that specifies the maze, actions, transitions.
      * @return An ArrayList of Strings representing actions that lead from the initial to
-     * the goal state, of the format: ["R", "R", "L", ...]
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
      */
     public static ArrayList<String> solve(MazeProblem problem) {
-        ArrayList<String> keyPath = goFromTo( problem.INITIAL_STATE, problem.KEY_STATE, problem );
-        ArrayList<String> goalPath = goFromTo( problem.KEY_STATE, problem.GOAL_STATES.get(0), problem);
+        return solve(problem, SearchMode.TWO_PHASE, SearchListener.NONE);
+    }
+
+    /**
+     * Solves the given MazeProblem as in solve(problem), reporting the progress of
+     * each search to the given listener.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param listener A SearchListener notified of each expansion, enqueue and goal
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve(MazeProblem problem, SearchListener listener) {
+        return solve(problem, SearchMode.TWO_PHASE, listener);
+    }
+
+    /**
+     * Solves the given MazeProblem as in solve(problem), using the given strategy.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param mode The SearchMode to solve with
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve(MazeProblem problem, SearchMode mode) {
+        return solve(problem, mode, SearchListener.NONE);
+    }
+
+    /**
+     * Solves the given MazeProblem as in solve(problem), using the given strategy and
+     * reporting the progress of each search to the given listener.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param mode The SearchMode to solve with
+     * @param listener A SearchListener notified of each expansion, enqueue and goal
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve(MazeProblem problem, SearchMode mode, SearchListener listener) {
+        if (!isSolvable(problem)) {
+            return null;
+        }
+        switch (mode) {
+        case SINGLE_PASS:
+            return solveSinglePass(problem, listener);
+        case JUMP_POINT:
+            return JumpPointPathfinder.solve(problem, listener);
+        case BIDIRECTIONAL:
+            return BidirectionalPathfinder.solve(problem, listener);
+        case IDA_STAR:
+            return IdaStarPathfinder.solve(problem, listener, IdaStarPathfinder.DEFAULT_TABLE_CAPACITY);
+        case HIERARCHICAL:
+            return HierarchicalPathfinder.solve(problem, listener);
+        case ANYTIME:
+            return AnytimePathfinder.solve(problem, problem, AnytimePathfinder.DEFAULT_INITIAL_WEIGHT,
+                AnytimePathfinder.DEFAULT_TIMEOUT, listener, SolutionListener.NONE);
+        case TOUR:
+            return WaypointPlanner.solve(problem);
+        case PARALLEL:
+            return ParallelPathfinder.solve(problem);
+        default:
+            return solveTwoPhase(problem, listener, problem);
+        }
+    }
+
+    /**
+     * Solves the given MazeProblem as in solve(problem), ordering the frontier of
+     * each search by the given Heuristic, e.g. a LandmarkHeuristic for the maze.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param heuristic The Heuristic estimating the remaining cost of each state
+     * @param listener A SearchListener notified of each expansion, enqueue and goal
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve(MazeProblem problem, Heuristic heuristic, SearchListener listener) {
+        if (!isSolvable(problem)) {
+            return null;
+        }
+        return solveTwoPhase(problem, listener, heuristic);
+    }
+
+    /**
+     * Solves the given MazeProblem as in solve(problem), returning the solution as a
+     * PathEncoding rather than as a list of Strings.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return A PathEncoding of the actions that lead from the initial to the goal state,
+     * or null if there is none
+     */
+    public static PathEncoding solveEncoded(MazeProblem problem) {
+        if (!isSolvable(problem)) {
+            return null;
+        }
+        if (problem.KEY_STATE == null) {
+            return goFromToEncoded( problem.INITIAL_STATE, problem.GOAL_STATES.get(0), problem );
+        }
+        PathEncoding keyPath = goFromToEncoded( problem.INITIAL_STATE, problem.KEY_STATE, problem );
+        PathEncoding goalPath = goFromToEncoded( problem.KEY_STATE, problem.GOAL_STATES.get(0), problem );
+        return new PathEncoding.Builder(keyPath.length() + goalPath.length()).addAll(keyPath).addAll(goalPath).build();
+    }
+
+    /**
+     * Returns whether the given MazeProblem has any solution at all, in O(1) time
+     * from its connected components: the key must be connected to the initial
+     * state, and some goal to the key (or to the initial state, if there is no key).
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return false if no sequence of actions solves the problem
+     */
+    public static boolean isSolvable(MazeProblem problem) {
+        if (problem.INITIAL_STATE == null || problem.GOAL_STATES.isEmpty()) {
+            return false;
+        }
+        int startId = problem.getStateId(problem.INITIAL_STATE);
+        if (problem.KEY_STATE == null) {
+            return problem.isConnectedToGoal(startId);
+        }
+        int keyId = problem.getStateId(problem.KEY_STATE);
+        return problem.isConnected(startId, keyId) && problem.isConnectedToGoal(keyId);
+    }
+
+    /**
+     * Solves the given MazeProblem with one search from the initial state to the key,
+     * and a second from the key to the nearest goal.
+     */
+    private static ArrayList<String> solveTwoPhase(MazeProblem problem, SearchListener listener, Heuristic heuristic) {
+        if (problem.KEY_STATE == null) {
+            return goFromTo( problem.INITIAL_STATE, problem.GOAL_STATES.get(0), problem, listener, heuristic );
+        }
+        ArrayList<String> keyPath = goFromTo( problem.INITIAL_STATE, problem.KEY_STATE, problem, listener, heuristic );
+        if (keyPath == null) {
+            return null;
+        }
+        ArrayList<String> goalPath = goFromTo( problem.KEY_STATE, problem.GOAL_STATES.get(0), problem, listener, heuristic );
+        if (goalPath == null) {
+            return null;
+        }
         keyPath.addAll( goalPath );
         return keyPath;
         // /// TODO: Initialize frontier--The frontier holds SearchTreeNodes!
@@ -113,17 +249,119 @@ public class Pathfinder {
         // }
     }
 
-    public static ArrayList<String> buildPath(SearchTreeNode root) {
-        Stack<String> temp = new Stack<>();
-        ArrayList<String> result = new ArrayList<>();
-        while (root.parent != null) {
-            temp.add(root.action);
-            root = root.parent;
+    /**
+     * Solves the given MazeProblem with a single A* search over the product space of
+     * maze positions and whether or not the key has been collected, so that the path
+     * may end at whichever goal makes the whole key-then-goal route cheapest. A
+     * product state's id is (position id * 2 + hasKey).
+     */
+    private static ArrayList<String> solveSinglePass(MazeProblem problem, SearchListener listener) {
+        int size = 2 * problem.getRows() * problem.getCols();
+        SearchPriorityQueue frontier = new SearchPriorityQueue(size);
+        int[] parents = new int[size], pathCosts = new int[size];
+        byte[] moves = new byte[size];
+        int[] neighbors = new int[4];
+        byte[] actions = new byte[4];
+        // Product ids span twice the grid, so size the set as if it had twice the rows
+        StateSet visitedStates = new StateSet(2 * problem.getRows(), problem.getCols());
+        int keyId = (problem.KEY_STATE == null) ? -1 : problem.getStateId(problem.KEY_STATE);
+        boolean listening = listener != SearchListener.NONE;
+
+        int startCell = problem.getStateId(problem.INITIAL_STATE);
+        int startId = 2 * startCell + ((keyId == -1 || keyId == startCell) ? 1 : 0);
+        int heuristic = estimateWithKey(problem, startId, keyId);
+        if (heuristic == DistanceTable.UNREACHABLE) {
+            return null;
+        }
+        parents[startId] = -1;
+        frontier.add( startId, heuristic );
+        listener.onEnqueue( problem.INITIAL_STATE, 0, heuristic );
+
+        while (!frontier.isEmpty()) {
+            int currentId = frontier.poll();
+            visitedStates.add(currentId);
+            int currentCell = currentId >> 1, hasKey = currentId & 1;
+            if ( listening ) {
+                listener.onExpand( problem.getState(currentCell), pathCosts[currentId] );
+            }
+
+            if ( hasKey == 1 && problem.isGoal(currentCell) ) {
+                if ( listening ) {
+                    listener.onGoal( problem.getState(currentCell), pathCosts[currentId] );
+                }
+                return buildPath(parents, moves, currentId);
+            }
+
+            int count = problem.expand(currentCell, neighbors, actions);
+            for (int i = 0; i < count; i++) {
+                int nextCell = neighbors[i];
+                int nextId = 2 * nextCell + ((nextCell == keyId) ? 1 : hasKey);
+                if ( visitedStates.contains(nextId) ) {
+                    continue;
+                }
+                int estimate = estimateWithKey(problem, nextId, keyId);
+                if ( estimate == DistanceTable.UNREACHABLE ) {
+                    continue;
+                }
+
+                int pathCost = pathCosts[currentId] + problem.getCost(nextCell);
+                heuristic = pathCost + estimate;
+                boolean improved = !frontier.contains(nextId);
+                if ( improved ) {
+                    frontier.add( nextId, heuristic );
+                } else {
+                    improved = frontier.decreaseKey( nextId, heuristic );
+                }
+                if ( improved ) {
+                    parents[nextId] = currentId;
+                    moves[nextId] = actions[i];
+                    pathCosts[nextId] = pathCost;
+                    if ( listening ) {
+                        listener.onEnqueue( problem.getState(nextCell), pathCost, heuristic );
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Estimates the remaining cost from a (position, hasKey) product state: the
+     * distance to the nearest goal once the key is held, or else the distance to
+     * the key plus the distance from the key to the nearest goal.
+     */
+    private static int estimateWithKey(MazeProblem problem, int productId, int keyId) {
+        int cell = productId >> 1;
+        if ((productId & 1) == 1) {
+            return problem.distanceToGoal(cell);
+        }
+        int toKey = problem.estimateDistance(cell, keyId),
+            keyToGoal = problem.distanceToGoal(keyId);
+        return (toKey == DistanceTable.UNREACHABLE || keyToGoal == DistanceTable.UNREACHABLE)
+            ? DistanceTable.UNREACHABLE
+            : toKey + keyToGoal;
+    }
+
+    /**
+     * Reconstructs the path to the given state from a search tree recorded as
+     * arrays indexed by state id, walking the parent links twice: once to size
+     * the result, and once to fill it in from the end.
+     *
+     * @param parents Each state's parent, or -1 for the root
+     * @param moves The direction ordinal of the action leading to each state
+     * @param endId id of the state to build the path to
+     * @return The actions leading from the root to the given state
+     */
+    public static ArrayList<String> buildPath(int[] parents, byte[] moves, int endId) {
+        int length = 0;
+        for (int id = endId; parents[id] != -1; id = parents[id]) {
+            length++;
         }
-        while (!temp.isEmpty()) {
-            result.add(temp.pop());
+        String[] path = new String[length];
+        for (int id = endId; parents[id] != -1; id = parents[id]) {
+            path[--length] = MazeProblem.getAction(moves[id]);
         }
-        return result;
+        return new ArrayList<>(Arrays.asList(path));
     }
 
     public static void main(String args[]) {
@@ -140,7 +378,7 @@ public class Pathfinder {
             // "XXXXXXX"
         };
         MazeProblem prob = new MazeProblem(maze);
-        System.out.println(Pathfinder.solve(prob));
+        System.out.println(Pathfinder.solve(prob, new TracingSearchListener()));
 
         String[] maze1 = {
             "XXXXXXX",
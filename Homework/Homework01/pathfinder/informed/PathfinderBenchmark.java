@@ -0,0 +1,137 @@
+// package pathfinder.informed;
+
+import java.util.ArrayList;
+
+/**
+ * Compares the number of states each SearchMode expands, and the time it takes,
+ * when solving large open mazes. Note that JUMP_POINT only counts the jump points
+ * it expands, not the cells it scans while jumping, and that TOUR and PARALLEL
+ * report no expansions. Then measures how ParallelPathfinder scales from one
+ * worker thread up to one per processor. Run with an optional maze size and
+ * maximum thread count, e.g.:
+ * <pre>
+ * java PathfinderBenchmark 1000 8
+ * </pre>
+ */
+public class PathfinderBenchmark {
+
+    /**
+     * SearchListener that counts expansions.
+     */
+    static class ExpansionCounter implements SearchListener {
+        long expanded;
+
+        @Override
+        public void onExpand (MazeState state, int pathCost) {
+            expanded++;
+        }
+    }
+
+    /**
+     * Builds an open size x size maze bordered by walls, with scattered wall
+     * segments, the initial state and key in opposite corners and a goal beside
+     * the initial state.
+     */
+    static String[] openMaze (int size) {
+        String[] result = new String[size];
+        for (int row = 0; row < size; row++) {
+            StringBuilder line = new StringBuilder(size);
+            for (int col = 0; col < size; col++) {
+                boolean border = row == 0 || col == 0 || row == size - 1 || col == size - 1;
+                boolean segment = row % 16 == 8 && col % 32 < 12;
+                line.append((border || segment) ? 'X' : '.');
+            }
+            result[row] = line.toString();
+        }
+        result[1] = "XI" + result[1].substring(2);
+        result[2] = "X.G" + result[2].substring(3);
+        result[size - 2] = result[size - 2].substring(0, size - 2) + "KX";
+        return result;
+    }
+
+    /**
+     * Builds a size x size maze bordered by walls in which the goal sits inside a
+     * cup-shaped wall that opens away from the initial state, so that the
+     * Manhattan heuristic leads a forward search into the back of the cup.
+     */
+    static String[] cupMaze (int size) {
+        int middle = size / 2, top = size / 4, bottom = 3 * size / 4, mouth = size - size / 8;
+        String[] result = new String[size];
+        for (int row = 0; row < size; row++) {
+            StringBuilder line = new StringBuilder(size);
+            for (int col = 0; col < size; col++) {
+                boolean border = row == 0 || col == 0 || row == size - 1 || col == size - 1;
+                boolean cup = (col == middle && row >= top && row <= bottom)
+                           || ((row == top || row == bottom) && col >= middle && col <= mouth);
+                line.append((border || cup) ? 'X' : '.');
+            }
+            result[row] = line.toString();
+        }
+        result[middle] = "XI" + result[middle].substring(2, middle + 5) + "G" + result[middle].substring(middle + 6);
+        result[middle + 1] = "XK" + result[middle + 1].substring(2);
+        return result;
+    }
+
+    /**
+     * Solves the given maze with every SearchMode, printing the cost found, the
+     * number of states expanded and the time taken by each. IDA_STAR is left out:
+     * it trades time for memory, and re-expands states so often in the cup maze
+     * that it would dominate the run.
+     */
+    static void run (String name, String[] maze) {
+        MazeProblem problem = new MazeProblem(maze);
+        System.out.println(name + " " + maze.length + " x " + maze.length + " maze");
+        for (SearchMode mode : SearchMode.values()) {
+            if (mode == SearchMode.IDA_STAR) {
+                continue;
+            }
+            ExpansionCounter counter = new ExpansionCounter();
+            long start = System.nanoTime();
+            ArrayList<String> solution = Pathfinder.solve(problem, mode, counter);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            int[] result = problem.testSolution(solution);
+            System.out.printf("  %-14s cost %6d   expanded %10d   %6d ms%n",
+                mode, result[1], counter.expanded, millis);
+        }
+    }
+
+    /**
+     * Solves the given maze with ParallelPathfinder over 1, 2, 4, ... worker
+     * threads up to maxThreads, printing the time taken by each and its speedup
+     * over one thread. Each is run once to warm up before being timed.
+     */
+    static void runScaling (String name, String[] maze, int maxThreads) {
+        MazeProblem problem = new MazeProblem(maze);
+        System.out.println(name + " " + maze.length + " x " + maze.length + " maze, "
+            + Runtime.getRuntime().availableProcessors() + " processors available");
+        long baseline = 0;
+        int threads = 1;
+        while (true) {
+            try (ParallelPathfinder pathfinder = new ParallelPathfinder(problem, threads)) {
+                pathfinder.solve();
+                long start = System.nanoTime();
+                ArrayList<String> solution = pathfinder.solve();
+                long nanos = System.nanoTime() - start;
+                if (threads == 1) {
+                    baseline = nanos;
+                }
+                System.out.printf("  %2d threads   cost %6d   %6d ms   speedup %.2f%n",
+                    threads, problem.testSolution(solution)[1], nanos / 1_000_000, (double) baseline / nanos);
+            }
+            if (threads >= maxThreads) {
+                break;
+            }
+            threads = Math.min(2 * threads, maxThreads);
+        }
+    }
+
+    public static void main (String[] args) {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : 500;
+        int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        run("Open", openMaze(size));
+        run("Cup", cupMaze(size));
+        runScaling("Open", openMaze(size), maxThreads);
+        runScaling("Cup", cupMaze(size), maxThreads);
+    }
+
+}
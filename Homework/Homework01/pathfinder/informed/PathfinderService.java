@@ -0,0 +1,161 @@
+// package pathfinder.informed;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Answers batches of path queries against a single, shared MazeProblem in
+ * parallel. Queries are split across a ForkJoinPool, and each worker thread
+ * keeps its own SearchWorkspace, so a batch allocates only its results rather
+ * than a fresh set of search structures per query.
+ */
+public class PathfinderService implements AutoCloseable {
+
+    /**
+     * A single path query: the state to navigate from and the state to navigate
+     * to, which, as in Pathfinder.goFromTo, may be any goal.
+     */
+    public static class Query {
+
+        public final MazeState start, end;
+
+        /**
+         * Constructs a new Query from start to end.
+         * @param start MazeState representing state where to navigate from
+         * @param end MazeState representing state needed to navigate to
+         */
+        public Query (MazeState start, MazeState end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public String toString () {
+            return start + " -> " + end;
+        }
+
+    }
+
+    // Queries per task below which a batch is no longer split
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final ForkJoinPool pool;
+    private final ThreadLocal<SearchWorkspace> workspaces;
+    private final Heuristic heuristic;
+    private final SearchListener listener;
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new PathfinderService for the given MazeProblem, with one worker
+     * per available processor.
+     *
+     * @param problem The MazeProblem every query will be answered on
+     */
+    PathfinderService (MazeProblem problem) {
+        this(problem, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new PathfinderService for the given MazeProblem.
+     *
+     * @param problem The MazeProblem every query will be answered on
+     * @param parallelism Number of worker threads to answer queries on
+     */
+    PathfinderService (MazeProblem problem, int parallelism) {
+        this(problem, parallelism, problem, SearchListener.NONE);
+    }
+
+    /**
+     * Constructs a new PathfinderService for the given MazeProblem, ordering every
+     * search by the given Heuristic and reporting its progress to the given
+     * listener, which is called from all of the worker threads at once.
+     *
+     * @param problem The MazeProblem every query will be answered on
+     * @param parallelism Number of worker threads to answer queries on
+     * @param heuristic Heuristic estimating the remaining cost, e.g. a LandmarkHeuristic
+     * @param listener Thread-safe SearchListener notified of each expansion,
+     * enqueue and goal
+     */
+    PathfinderService (MazeProblem problem, int parallelism, Heuristic heuristic, SearchListener listener) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(problem));
+        this.heuristic = heuristic;
+        this.listener = listener;
+    }
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Answers every query in the given list, in parallel.
+     *
+     * @param queries The queries to answer
+     * @return A list holding, at each index, the path answering the query at that
+     * index as Pathfinder.goFromTo would return it, or null if there is none
+     */
+    public List<ArrayList<String>> solveAll (List<Query> queries) {
+        List<ArrayList<String>> results = new ArrayList<>(Collections.nCopies(queries.size(), null));
+        pool.invoke(new SolveTask(queries, results, 0, queries.size()));
+        return results;
+    }
+
+    /**
+     * Answers a single query on one of this service's worker threads, so that it
+     * reuses that worker's SearchWorkspace rather than leaving a new one behind
+     * on every thread that calls it.
+     *
+     * @param query The query to answer
+     * @return The path answering the query, or null if there is none
+     */
+    public ArrayList<String> solve (Query query) {
+        return pool.submit(() -> workspaces.get().goFromTo(query.start, query.end, listener, heuristic)).join();
+    }
+
+    /**
+     * Shuts down this service's worker threads.
+     */
+    @Override
+    public void close () {
+        pool.shutdown();
+    }
+
+    /**
+     * Answers the queries in [from, to), splitting the range in half until it is
+     * small enough to answer directly.
+     */
+    private class SolveTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Query> queries;
+        private final List<ArrayList<String>> results;
+        private final int from, to;
+
+        SolveTask (List<Query> queries, List<ArrayList<String>> results, int from, int to) {
+            this.queries = queries;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute () {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                SearchWorkspace workspace = workspaces.get();
+                for (int i = from; i < to; i++) {
+                    Query query = queries.get(i);
+                    results.set(i, workspace.goFromTo(query.start, query.end, listener, heuristic));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SolveTask(queries, results, from, middle),
+                      new SolveTask(queries, results, middle, to));
+        }
+
+    }
+
+}
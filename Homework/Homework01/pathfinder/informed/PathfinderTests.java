@@ -2,7 +2,19 @@
 
 import static org.junit.Assert.*;
 import org.junit.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Unit tests for Maze Pathfinder. Tests include completeness and
@@ -49,7 +61,771 @@ public class PathfinderTests {
 
         int[] result = prob.testSolution(solution);
         assertEquals(1,  result[0]); // Test that result is a solution
-        assertEquals(12, result[1]); // Ensure that the solution is optimal
+        assertEquals(14, result[1]); // Ensure that the solution is optimal
+    }
+
+    @Test
+    public void testPathfinder_precomputedDistances() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI.G..X",
+            "X.MMMGX",
+            "X.XKX.X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        prob.precomputeDistances();
+        ArrayList<String> solution = Pathfinder.solve(prob);
+
+        // With exact distances, the key and goal legs are each as cheap as the
+        // precomputed tables say they can be
+        DistanceTable toKey = new DistanceTable(prob, prob.getStateId(prob.KEY_STATE));
+        int[] result = prob.testSolution(solution);
+        assertEquals(1, result[0]);
+        assertEquals(toKey.get(prob.INITIAL_STATE) + prob.distanceToGoal(prob.KEY_STATE), result[1]);
+    }
+
+    @Test
+    public void testPathfinder_singlePass() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI.G..X",
+            "X.MMMGX",
+            "X.XKX.X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        int[] twoPhase = prob.testSolution(Pathfinder.solve(prob, SearchMode.TWO_PHASE));
+        int[] singlePass = prob.testSolution(Pathfinder.solve(prob, SearchMode.SINGLE_PASS));
+        assertEquals(1, singlePass[0]);
+        assertTrue(singlePass[1] <= twoPhase[1]);
+    }
+
+    @Test
+    public void testPathfinder_jumpPoint() {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XI.........X",
+            "X....X.....X",
+            "X....X.MM..X",
+            "X....X..K..X",
+            "X..........X",
+            "XG.........X",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        int[] expected = prob.testSolution(Pathfinder.solve(prob));
+        int[] result = prob.testSolution(Pathfinder.solve(prob, SearchMode.JUMP_POINT));
+        assertEquals(1, result[0]);
+        assertEquals(expected[1], result[1]);
+    }
+
+    @Test
+    public void testPathfinder_bidirectional() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XKXGX",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solve(prob, SearchMode.BIDIRECTIONAL);
+
+        int[] result = prob.testSolution(solution);
+        assertEquals(1,  result[0]);
+        assertEquals(14, result[1]);
+    }
+
+    @Test
+    public void testPathfinder_idaStar() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XKXGX",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+
+        int[] result = prob.testSolution(Pathfinder.solve(prob, SearchMode.IDA_STAR));
+        assertEquals(1,  result[0]);
+        assertEquals(14, result[1]);
+
+        // Without a transposition table
+        result = prob.testSolution(IdaStarPathfinder.solve(prob, SearchListener.NONE, 0));
+        assertEquals(1,  result[0]);
+        assertEquals(14, result[1]);
+    }
+
+    @Test
+    public void testPathfinderService_solveAll() {
+        // (7, 1) is open but walled off from the rest of the maze
+        String[] maze = {
+            "XXXXXXXXX",
+            "XI....X.X",
+            "X.XXX.XXX",
+            "X.XKXGXXX",
+            "X.....XXX",
+            "XXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        // Every query starts at the initial state, so that testSolution can cost it
+        MazeState[] ends = { prob.KEY_STATE, prob.GOAL_STATES.get(0), new MazeState(1, 4), new MazeState(7, 1) };
+        List<PathfinderService.Query> queries = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            for (MazeState end : ends) {
+                queries.add(new PathfinderService.Query(prob.INITIAL_STATE, end));
+            }
+        }
+
+        try (PathfinderService service = new PathfinderService(prob, 4)) {
+            List<ArrayList<String>> solutions = service.solveAll(queries);
+            assertEquals(queries.size(), solutions.size());
+            for (int i = 0; i < queries.size(); i++) {
+                PathfinderService.Query query = queries.get(i);
+                ArrayList<String> expected = Pathfinder.goFromTo(query.start, query.end, prob);
+                if (expected == null) {
+                    assertNull(solutions.get(i));
+                } else {
+                    assertEquals(prob.testSolution(expected)[1], prob.testSolution(solutions.get(i))[1]);
+                }
+            }
+            assertNull(solutions.get(3));
+            assertEquals(6, prob.testSolution(service.solve(queries.get(1)))[1]);
+            assertNull(service.solve(queries.get(3)));
+        }
+
+        // Queries may be ordered by another Heuristic and traced
+        AtomicInteger goals = new AtomicInteger();
+        SearchListener listener = new SearchListener() {
+            @Override
+            public void onGoal (MazeState state, int pathCost) {
+                goals.incrementAndGet();
+            }
+        };
+        try (PathfinderService service = new PathfinderService(prob, 4, new LandmarkHeuristic(prob), listener)) {
+            List<ArrayList<String>> solutions = service.solveAll(queries);
+            for (int i = 0; i < queries.size(); i++) {
+                ArrayList<String> expected = Pathfinder.goFromTo(queries.get(i).start, queries.get(i).end, prob);
+                if (expected != null) {
+                    assertEquals(prob.testSolution(expected)[1], prob.testSolution(solutions.get(i))[1]);
+                }
+            }
+            assertEquals(300, goals.get());
+        }
+    }
+
+    @Test
+    public void testPathfinderService_concurrentAfterSetTile() throws InterruptedException {
+        // Open 300x300 room, in which adding a wall never disconnects anything, so
+        // every query stays answerable while other threads relabel the components
+        int size = 300;
+        String[] maze = new String[size];
+        for (int row = 0; row < size; row++) {
+            StringBuilder line = new StringBuilder();
+            for (int col = 0; col < size; col++) {
+                boolean border = row == 0 || col == 0 || row == size - 1 || col == size - 1;
+                line.append(border ? 'X' : '.');
+            }
+            maze[row] = line.toString();
+        }
+        maze[1] = "XI" + maze[1].substring(2);
+        maze[size - 2] = maze[size - 2].substring(0, size - 2) + "GX";
+        MazeProblem prob = new MazeProblem(maze);
+        int from = prob.getStateId(prob.INITIAL_STATE), to = prob.getStateId(prob.GOAL_STATES.get(0));
+
+        AtomicInteger failures = new AtomicInteger();
+        for (int round = 0; round < 20; round++) {
+            prob.setTile(size / 2, 1 + round, MazeProblem.WALL);
+            Thread[] threads = new Thread[4];
+            CyclicBarrier start = new CyclicBarrier(threads.length);
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException | BrokenBarrierException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 1000; i++) {
+                        if (!prob.isConnected(from, to)) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        assertEquals(0, failures.get());
+
+        prob.setTile(size / 2, size / 2, MazeProblem.WALL);
+        List<PathfinderService.Query> queries = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            queries.add(new PathfinderService.Query(prob.INITIAL_STATE, prob.GOAL_STATES.get(0)));
+        }
+        try (PathfinderService service = new PathfinderService(prob, 4)) {
+            for (ArrayList<String> solution : service.solveAll(queries)) {
+                assertNotNull(solution);
+            }
+        }
+    }
+
+    @Test
+    public void testPathCache() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XKXGX",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        PathCache cache = new PathCache(1);
+
+        ArrayList<String> first = cache.goFromTo(prob.INITIAL_STATE, prob.KEY_STATE, prob);
+        ArrayList<String> second = cache.goFromTo(prob.INITIAL_STATE, prob.KEY_STATE, prob);
+        assertEquals(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // A second path evicts the least recently used one
+        cache.goFromTo(prob.KEY_STATE, prob.GOAL_STATES.get(0), prob);
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        // Every query to a registered target is answered from its DistanceTable
+        cache.addTarget(prob.GOAL_STATES.get(0), prob);
+        ArrayList<String> solution = cache.goFromTo(prob.INITIAL_STATE, prob.KEY_STATE, prob);
+        solution.addAll(cache.goFromTo(prob.KEY_STATE, prob.GOAL_STATES.get(0), prob));
+        assertEquals(2, cache.getHits());
+        int[] result = prob.testSolution(solution);
+        assertEquals(1,  result[0]);
+        assertEquals(14, result[1]);
+
+        // Changing a tile drops every path and target cached for the maze
+        prob.setTile(1, 2, MazeProblem.WALL);
+        assertEquals(0, cache.size());
+        cache.goFromTo(prob.KEY_STATE, prob.GOAL_STATES.get(0), prob);
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testDStarLite_replan() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.XXX.X",
+            "X....GX",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        DStarLitePathfinder replanner = new DStarLitePathfinder(prob.INITIAL_STATE, prob.GOAL_STATES.get(0), prob);
+        assertEquals(6, prob.testSolution(replanner.plan())[1]);
+
+        // Close the lower route and muddy the upper one
+        prob.setTile(1, 2, MazeProblem.WALL);
+        prob.setTile(5, 2, MazeProblem.MUD);
+        int[] result = prob.testSolution(replanner.plan());
+        assertEquals(1, result[0]);
+        assertEquals(8, result[1]);
+
+        // Reopen the lower route
+        prob.setTile(1, 2, MazeProblem.OPEN);
+        result = prob.testSolution(replanner.plan());
+        assertEquals(1, result[0]);
+        assertEquals(6, result[1]);
+        replanner.close();
+    }
+
+    @Test
+    public void testPathfinder_hierarchical() {
+        String[] maze = {
+            "XXXXXXXXXX",
+            "XI.......X",
+            "X.XXXXXX.X",
+            "X.X....X.X",
+            "X.X.XX.X.X",
+            "X...XK...X",
+            "XXXXXXXXGX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        HierarchicalPathfinder hierarchy = new HierarchicalPathfinder(prob, 3);
+        int[] expected = prob.testSolution(Pathfinder.solve(prob));
+
+        ArrayList<String> solution = hierarchy.goFromTo(prob.INITIAL_STATE, prob.KEY_STATE, SearchListener.NONE);
+        solution.addAll(hierarchy.goFromTo(prob.KEY_STATE, prob.GOAL_STATES.get(0), SearchListener.NONE));
+        int[] result = prob.testSolution(solution);
+        assertEquals(1, result[0]);
+        assertTrue(result[1] >= expected[1]);
+
+        // Walling off the key's cluster leaves no path to the key
+        prob.setTile(6, 5, MazeProblem.WALL);
+        assertNull(hierarchy.goFromTo(prob.INITIAL_STATE, prob.KEY_STATE, SearchListener.NONE));
+    }
+
+    @Test
+    public void testPathEncoding() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI....X",
+            "X.MMM.X",
+            "X.XKXGX",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solve(prob);
+        PathEncoding encoded = Pathfinder.solveEncoded(prob);
+
+        int[] result = prob.testSolution(encoded);
+        assertEquals(1,  result[0]);
+        assertEquals(14, result[1]);
+        assertEquals(solution, encoded.toList());
+        assertEquals(encoded, PathEncoding.of(solution));
+        assertEquals(2, encoded.toByteArray().length);
+
+        // Walking into a wall is not a solution
+        PathEncoding blocked = new PathEncoding.Builder(1).add(MazeProblem.UP).build();
+        assertEquals(0, prob.testSolution(blocked)[0]);
+    }
+
+    @Test
+    public void testMazeProblem_expand() {
+        // No outer walls, so that the maze's borders are exercised directly
+        String[] maze = {
+            "I.X",
+            ".X.",
+            "..G"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        // Corners, next to walls, and a wall cell itself, whose open neighbors
+        // are reported in direction order
+        assertExpands(prob, 0, new int[] {3, 1}, new byte[] {MazeProblem.DOWN, MazeProblem.RIGHT});
+        assertExpands(prob, 1, new int[] {0}, new byte[] {MazeProblem.LEFT});
+        assertExpands(prob, 7, new int[] {6, 8}, new byte[] {MazeProblem.LEFT, MazeProblem.RIGHT});
+        assertExpands(prob, 8, new int[] {5, 7}, new byte[] {MazeProblem.UP, MazeProblem.LEFT});
+        assertExpands(prob, 4, new int[] {1, 7, 3, 5},
+                      new byte[] {MazeProblem.UP, MazeProblem.DOWN, MazeProblem.LEFT, MazeProblem.RIGHT});
+        assertEquals("U", MazeProblem.getAction(MazeProblem.UP));
+        assertEquals("D", MazeProblem.getAction(MazeProblem.DOWN));
+        assertEquals("L", MazeProblem.getAction(MazeProblem.LEFT));
+        assertEquals("R", MazeProblem.getAction(MazeProblem.RIGHT));
+    }
+
+    private static void assertExpands (MazeProblem prob, int stateId, int[] neighbors, byte[] actions) {
+        int[] outNeighbors = new int[4];
+        byte[] outActions = new byte[4];
+        assertEquals(neighbors.length, prob.expand(stateId, outNeighbors, outActions));
+        for (int i = 0; i < neighbors.length; i++) {
+            assertEquals(neighbors[i], outNeighbors[i]);
+            assertEquals(actions[i], outActions[i]);
+        }
+    }
+
+    @Test
+    public void testMazeState_packAndHash() {
+        int[][] coords = { {0, 0}, {2, 3}, {3, 2}, {0, 7}, {7, 0}, {65535, 65535}, {-1, -2}, {Integer.MAX_VALUE, Integer.MIN_VALUE} };
+        for (int[] coord : coords) {
+            MazeState state = new MazeState(coord[0], coord[1]);
+            MazeState unpacked = MazeState.unpack(state.pack());
+            assertEquals(coord[0], unpacked.col);
+            assertEquals(coord[1], unpacked.row);
+            assertEquals(state, unpacked);
+            assertEquals(state.hashCode(), unpacked.hashCode());
+        }
+        assertTrue(new MazeState(2, 3).pack() != new MazeState(3, 2).pack());
+
+        // Transposed pairs, and states in row 0 or column 0, no longer collide
+        assertTrue(new MazeState(2, 3).hashCode() != new MazeState(3, 2).hashCode());
+        Set<Integer> hashes = new HashSet<>();
+        for (int i = 0; i < 256; i++) {
+            hashes.add(new MazeState(0, i).hashCode());
+            hashes.add(new MazeState(i, 0).hashCode());
+        }
+        assertEquals(511, hashes.size());
+        for (int col = 0; col < 64; col++) {
+            for (int row = 0; row < 64; row++) {
+                hashes.add(new MazeState(col, row).hashCode());
+            }
+        }
+        assertEquals(511 + 63 * 63, hashes.size());
+    }
+
+    @Test
+    public void testSearchPriorityQueue() {
+        SearchPriorityQueue queue = new SearchPriorityQueue(8);
+        int[] priorities = {50, 40, 30, 20, 10, 60, 70};
+        for (int id = 0; id < priorities.length; id++) {
+            queue.add(id, priorities[id]);
+        }
+        assertEquals(4, queue.peek());
+
+        // decreaseKey only ever lowers a priority, moving the state up the heap
+        assertTrue(queue.decreaseKey(6, 5));
+        assertFalse(queue.decreaseKey(0, 55));
+        assertFalse(queue.decreaseKey(0, 50));
+        assertEquals(6, queue.peek());
+        assertEquals(50, queue.getPriority(0));
+
+        // update moves a state either way, and remove takes it out of the middle
+        queue.update(6, 100);
+        queue.update(0, 1);
+        assertTrue(queue.remove(2));
+        assertFalse(queue.remove(2));
+        assertFalse(queue.contains(2));
+        assertFalse(queue.contains(7));
+
+        int[] expected = {0, 4, 3, 1, 5, 6};
+        assertEquals(expected.length, queue.size());
+        for (int id : expected) {
+            assertTrue(queue.contains(id));
+            assertEquals(id, queue.poll());
+            assertFalse(queue.contains(id));
+        }
+        assertTrue(queue.isEmpty());
+
+        // A cleared queue forgets every state, so each may be added again
+        queue.add(3, 3);
+        queue.add(5, 5);
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(3));
+        queue.add(3, 1);
+        assertEquals(3, queue.poll());
+    }
+
+    @Test
+    public void testSearchPriorityQueue_random() {
+        // Every operation is mirrored on a plain array, and the queue's index is
+        // checked against it after each one: every id is contained exactly when
+        // it is in the model, with the model's priority, and the head is a minimum
+        int capacity = 64;
+        SearchPriorityQueue queue = new SearchPriorityQueue(capacity);
+        int[] model = new int[capacity];
+        Arrays.fill(model, -1);
+        Random random = new Random(42);
+        for (int step = 0; step < 20000; step++) {
+            int id = random.nextInt(capacity), priority = random.nextInt(1000);
+            switch (random.nextInt(5)) {
+            case 0:
+            case 1:
+                if (model[id] == -1) {
+                    queue.add(id, priority);
+                    model[id] = priority;
+                }
+                break;
+            case 2:
+                if (model[id] != -1) {
+                    assertEquals(priority < model[id], queue.decreaseKey(id, priority));
+                    model[id] = Math.min(model[id], priority);
+                }
+                break;
+            case 3:
+                if (model[id] != -1) {
+                    queue.update(id, priority);
+                    model[id] = priority;
+                }
+                break;
+            default:
+                assertEquals(model[id] != -1, queue.remove(id));
+                model[id] = -1;
+            }
+
+            int size = 0, min = Integer.MAX_VALUE;
+            for (int i = 0; i < capacity; i++) {
+                assertEquals(model[i] != -1, queue.contains(i));
+                if (model[i] != -1) {
+                    assertEquals(model[i], queue.getPriority(i));
+                    min = Math.min(min, model[i]);
+                    size++;
+                }
+            }
+            assertEquals(size, queue.size());
+            if (size > 0) {
+                assertEquals(min, queue.getPriority(queue.peek()));
+            }
+
+            // Every so often, check the order of the whole heap by draining it,
+            // then refill it
+            if (step % 50 == 49) {
+                int[] drained = drainInOrder(queue, model);
+                for (int i = 0; i < size; i++) {
+                    queue.add(drained[i], model[drained[i]]);
+                }
+            }
+        }
+        drainInOrder(queue, model);
+    }
+
+    /**
+     * Polls every id from the queue, checking that they come out in order of
+     * their priorities in the model and that none is missing.
+     */
+    private static int[] drainInOrder (SearchPriorityQueue queue, int[] model) {
+        int[] result = new int[queue.size()];
+        int count = 0, last = Integer.MIN_VALUE;
+        while (!queue.isEmpty()) {
+            int id = queue.poll();
+            assertTrue(model[id] >= last);
+            last = model[id];
+            result[count++] = id;
+        }
+        int expected = 0;
+        for (int priority : model) {
+            if (priority != -1) {
+                expected++;
+            }
+        }
+        assertEquals(expected, count);
+        return result;
+    }
+
+    @Test
+    public void testMazeProblem_load() throws IOException {
+        // LF, CRLF, no newline at the end and trailing blank lines all load the same maze
+        String[] files = { "XIX\nX.G\n", "XIX\r\nX.G\r\n", "XIX\nX.G", "XIX\nX.G\n\n", "XIX\r\nX.G\r\n\r\n\r\n" };
+        for (String text : files) {
+            MazeProblem prob = loadMaze(text);
+            assertEquals(2, prob.getRows());
+            assertEquals(3, prob.getCols());
+            assertEquals(MazeProblem.WALL, prob.getTile(0, 1));
+            int[] result = prob.testSolution(Pathfinder.solve(prob));
+            assertEquals(1, result[0]);
+            assertEquals(2, result[1]);
+        }
+
+        // Ragged rows, and rows after a blank line, are rejected
+        for (String text : new String[] { "XIX\nX.GX\n", "XIX\nXG\n", "XIX\n\nX.G\n" }) {
+            try {
+                loadMaze(text);
+                fail("Loaded invalid maze: " + text);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    private static MazeProblem loadMaze (String text) throws IOException {
+        Path file = Files.createTempFile("maze", ".txt");
+        try {
+            Files.writeString(file, text);
+            return MazeProblem.load(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testPathfinder_unreachable() {
+        String[] maze = {
+            "XXXXXXX",
+            "XI..X.X",
+            "X...XKX",
+            "X..GX.X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        assertFalse(prob.isConnected(prob.INITIAL_STATE, prob.KEY_STATE));
+        assertFalse(Pathfinder.isSolvable(prob));
+        for (SearchMode mode : SearchMode.values()) {
+            assertNull(Pathfinder.solve(prob, mode, SearchListener.NONE));
+        }
+        assertNull(Pathfinder.goFromTo(prob.INITIAL_STATE, prob.KEY_STATE, prob));
+
+        // Opening the wall joins the two components; closing it again splits them
+        prob.setTile(4, 2, MazeProblem.OPEN);
+        assertTrue(Pathfinder.isSolvable(prob));
+        assertEquals(1, prob.testSolution(Pathfinder.solve(prob))[0]);
+        prob.setTile(4, 2, MazeProblem.WALL);
+        assertFalse(prob.isConnected(prob.INITIAL_STATE, prob.KEY_STATE));
+        assertTrue(prob.isConnectedToGoal(prob.getStateId(prob.INITIAL_STATE)));
+    }
+
+    @Test
+    public void testLandmarkHeuristic() throws IOException {
+        String[] maze = {
+            "XXXXXXXXXXX",
+            "XI..X.....X",
+            "XXX.X.XXX.X",
+            "X...X.X.M.X",
+            "X.XXX.X.X.X",
+            "X.....XKX.X",
+            "XXXXXXXXXGX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        LandmarkHeuristic landmarks = new LandmarkHeuristic(prob, 3);
+        assertEquals(3, landmarks.getLandmarks().length);
+
+        // Admissible, and tighter than the Manhattan distance around the walls
+        int initialId = prob.getStateId(prob.INITIAL_STATE), keyId = prob.getStateId(prob.KEY_STATE);
+        int exact = prob.testSolution(Pathfinder.goFromTo(prob.INITIAL_STATE, prob.KEY_STATE, prob))[1];
+        assertTrue(landmarks.estimateDistance(initialId, keyId) <= exact);
+        assertTrue(landmarks.estimateDistance(initialId, keyId) > prob.distance(initialId, keyId));
+        int[] expected = prob.testSolution(Pathfinder.solve(prob));
+        int[] result = prob.testSolution(Pathfinder.solve(prob, landmarks, SearchListener.NONE));
+        assertEquals(1, result[0]);
+        assertEquals(expected[1], result[1]);
+
+        // A saved table loads back with the same estimates
+        Path file = Files.createTempFile("landmarks", ".bin");
+        try {
+            landmarks.save(file);
+            LandmarkHeuristic loaded = LandmarkHeuristic.load(file, prob);
+            assertEquals(landmarks.estimateDistance(initialId, keyId), loaded.estimateDistance(initialId, keyId));
+            assertEquals(landmarks.distanceToGoal(keyId), loaded.distanceToGoal(keyId));
+            loaded.close();
+        } finally {
+            Files.delete(file);
+        }
+
+        // Changing a tile falls back to the Manhattan distance
+        prob.setTile(4, 2, MazeProblem.OPEN);
+        assertTrue(landmarks.isStale());
+        assertEquals(prob.distance(initialId, keyId), landmarks.estimateDistance(initialId, keyId));
+        landmarks.close();
+    }
+
+    @Test
+    public void testAnytimePathfinder() {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XI...MMM...X",
+            "X.XX.XXX.X.X",
+            "X..M...M.XKX",
+            "XX.XXX.X.X.X",
+            "X....M...M.X",
+            "XXXXXXXXXXGX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        int[] expected = prob.testSolution(Pathfinder.solve(prob));
+
+        // Every reported solution is valid, cheaper than the last and within its bound
+        ArrayList<Integer> costs = new ArrayList<>();
+        ArrayList<String> solution = AnytimePathfinder.solve(prob, Duration.ofSeconds(10), (path, pathCost, bound) -> {
+            int[] result = prob.testSolution(path);
+            assertEquals(1, result[0]);
+            assertEquals(pathCost, result[1]);
+            assertTrue(pathCost <= bound * expected[1]);
+            assertTrue(costs.isEmpty() || pathCost < costs.get(costs.size() - 1));
+            costs.add(pathCost);
+        });
+
+        // Given long enough, the search tightens to an optimal solution
+        int[] result = prob.testSolution(solution);
+        assertEquals(1, result[0]);
+        assertEquals(expected[1], result[1]);
+        assertEquals(expected[1], (int) costs.get(costs.size() - 1));
+
+        // With no time to spare, the first path is still returned
+        result = prob.testSolution(AnytimePathfinder.solve(prob, Duration.ZERO, SolutionListener.NONE));
+        assertEquals(1, result[0]);
+        assertTrue(result[1] <= AnytimePathfinder.DEFAULT_INITIAL_WEIGHT * expected[1]);
+    }
+
+    @Test
+    public void testWaypointPlanner() {
+        String[] maze = {
+            "XXXXXXXXXX",
+            "XK...M..KX",
+            "X.XX.XX.XX",
+            "X..I.M...X",
+            "XX.XXX.X.X",
+            "XK.....MGX",
+            "XXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        assertEquals(3, prob.KEY_STATES.size());
+
+        // The tour collects every key, at the cost of the cheapest of all orders
+        int best = Integer.MAX_VALUE;
+        int[][] orders = { {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0} };
+        for (int[] order : orders) {
+            ArrayList<String> tour = new ArrayList<>();
+            MazeState current = prob.INITIAL_STATE;
+            for (int i : order) {
+                tour.addAll(Pathfinder.goFromTo(current, prob.KEY_STATES.get(i), prob));
+                current = prob.KEY_STATES.get(i);
+            }
+            tour.addAll(Pathfinder.goFromTo(current, prob.GOAL_STATES.get(0), prob));
+            best = Math.min(best, prob.testTour(tour, prob.KEY_STATES)[1]);
+        }
+        int[] result = prob.testTour(Pathfinder.solve(prob, SearchMode.TOUR), prob.KEY_STATES);
+        assertEquals(1, result[0]);
+        assertEquals(best, result[1]);
+
+        // The key-then-goal solution only collects the last key
+        assertEquals(0, prob.testTour(Pathfinder.solve(prob), prob.KEY_STATES)[0]);
+
+        // Walling off a key leaves no tour, once the planner notices the change
+        WaypointPlanner planner = new WaypointPlanner(prob, prob.KEY_STATES);
+        assertNotNull(planner.planFrom(prob.INITIAL_STATE));
+        prob.setTile(2, 5, MazeProblem.WALL);
+        assertNull(planner.planFrom(prob.INITIAL_STATE));
+        planner.close();
+    }
+
+    @Test
+    public void testParallelPathfinder() throws InterruptedException {
+        String[] maze = {
+            "XXXXXXXXXXXXXXXXXXXX",
+            "XI.....M.....X.....X",
+            "X.XXXXXXXXX..X..M..X",
+            "X.......M.X..XXXX..X",
+            "XXXXX.XX..X........X",
+            "X.....X...XXXXXX.XXX",
+            "X.MMM.X.K......X...X",
+            "X.....X.XXXXXX.XXX.X",
+            "X.........M........X",
+            "XXXXXXXXXXXXXXXXXXGX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        int[] expected = prob.testSolution(Pathfinder.solve(prob));
+        try (ParallelPathfinder pathfinder = new ParallelPathfinder(prob, 3)) {
+            int[] result = prob.testSolution(pathfinder.solve());
+            assertEquals(1, result[0]);
+            assertEquals(expected[1], result[1]);
+
+            // Searches may be repeated on the same workers, and an unreachable
+            // target is rejected
+            result = prob.testSolution(pathfinder.solve());
+            assertEquals(expected[1], result[1]);
+            assertNull(pathfinder.goFromTo(prob.INITIAL_STATE, new MazeState(0, 0)));
+        }
+
+        // Searches from several threads on the same workers take turns
+        try (ParallelPathfinder pathfinder = new ParallelPathfinder(prob, 2)) {
+            List<int[]> results = new ArrayList<>();
+            Thread[] callers = new Thread[2];
+            for (int t = 0; t < callers.length; t++) {
+                callers[t] = new Thread(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        int[] result = prob.testSolution(pathfinder.solve());
+                        synchronized (results) {
+                            results.add(result);
+                        }
+                    }
+                });
+                callers[t].setDaemon(true);
+                callers[t].start();
+            }
+            for (Thread caller : callers) {
+                caller.join(10000);
+                assertFalse(caller.isAlive());
+            }
+            assertEquals(400, results.size());
+            for (int[] result : results) {
+                assertEquals(expected[1], result[1]);
+            }
+        }
+
+        // A maze without a goal has no solution, rather than failing on GOAL_STATES
+        MazeProblem noGoal = new MazeProblem(new String[] { "XXXX", "XI.X", "XXXX" });
+        assertNull(ParallelPathfinder.solve(noGoal));
+        try (ParallelPathfinder pathfinder = new ParallelPathfinder(noGoal, 2)) {
+            assertNull(pathfinder.solve());
+        }
     }
 
 }
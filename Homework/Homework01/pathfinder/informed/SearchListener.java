@@ -0,0 +1,44 @@
+// package pathfinder.informed;
+
+/**
+ * Callback interface through which a search reports its progress, e.g. for
+ * tracing or collecting statistics. Every method has an empty default so that
+ * implementations need only override the events they care about. The NONE
+ * listener is used when no diagnostics are wanted; searches given NONE skip
+ * their listener calls altogether, so that they do not look up (and intern in
+ * the maze) a MazeState for every state they touch.
+ */
+public interface SearchListener {
+
+    /**
+     * Listener that ignores every event.
+     */
+    SearchListener NONE = new SearchListener() {};
+
+    /**
+     * Called when a state is removed from the frontier to be expanded.
+     *
+     * @param state The MazeState (col, row) being expanded
+     * @param pathCost The cost g(n) of the best known path to that state
+     */
+    default void onExpand (MazeState state, int pathCost) {}
+
+    /**
+     * Called when a state is added to the frontier, or its priority on the
+     * frontier is lowered because a cheaper path to it was found.
+     *
+     * @param state The MazeState (col, row) being enqueued
+     * @param pathCost The cost g(n) of the path to that state
+     * @param priority The priority f(n) = g(n) + h(n) of that state
+     */
+    default void onEnqueue (MazeState state, int pathCost, int priority) {}
+
+    /**
+     * Called once when the search reaches its target.
+     *
+     * @param state The target MazeState (col, row) that was reached
+     * @param pathCost The cost g(n) of the path found to that state
+     */
+    default void onGoal (MazeState state, int pathCost) {}
+
+}
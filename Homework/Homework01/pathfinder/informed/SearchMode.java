@@ -0,0 +1,66 @@
+// package pathfinder.informed;
+
+/**
+ * Strategies that Pathfinder.solve can use to find a path from the initial state,
+ * through the key, to a goal.
+ */
+public enum SearchMode {
+
+    /**
+     * Two A* searches: from the initial state to the key, then from the key to
+     * the nearest goal.
+     */
+    TWO_PHASE,
+
+    /**
+     * A single A* search over (position, hasKey) pairs that may end at any goal,
+     * finding the cheapest key-then-goal route without exploring any region twice.
+     */
+    SINGLE_PASS,
+
+    /**
+     * Two Jump Point Searches, as in TWO_PHASE, which skip across open areas of
+     * uniform cost instead of enqueuing every cell; see JumpPointPathfinder.
+     */
+    JUMP_POINT,
+
+    /**
+     * Two bidirectional A* searches, as in TWO_PHASE, each running forward from its
+     * start and backward from its target until they meet; see BidirectionalPathfinder.
+     */
+    BIDIRECTIONAL,
+
+    /**
+     * Two iterative-deepening A* searches, as in TWO_PHASE, which keep only the
+     * current path in memory; see IdaStarPathfinder.
+     */
+    IDA_STAR,
+
+    /**
+     * Two hierarchical searches, as in TWO_PHASE, over the maze's cached cluster
+     * abstraction, whose paths are near-optimal rather than optimal; see
+     * HierarchicalPathfinder.
+     */
+    HIERARCHICAL,
+
+    /**
+     * Two anytime weighted A* (ARA*) searches, as in TWO_PHASE, which find a path
+     * quickly and then tighten it toward optimal for up to
+     * AnytimePathfinder.DEFAULT_TIMEOUT; see AnytimePathfinder.
+     */
+    ANYTIME,
+
+    /**
+     * Collects every key in the maze (KEY_STATES), not only KEY_STATE, in the
+     * cheapest order before ending at the nearest goal, from one Dijkstra search
+     * per key; see WaypointPlanner.
+     */
+    TOUR,
+
+    /**
+     * Two hash distributed A* (HDA*) searches, as in TWO_PHASE, each spread over
+     * one worker thread per available processor; see ParallelPathfinder.
+     */
+    PARALLEL
+
+}
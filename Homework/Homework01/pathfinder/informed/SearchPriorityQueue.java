@@ -1,18 +1,250 @@
-import java.util.*;
+// package pathfinder.informed;
 
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Indexed binary min-heap of state ids keyed by int priorities, used as the
+ * frontier of the informed search. Each state id may appear at most once, and
+ * its priority may be lowered in place with decreaseKey, so a state first
+ * reached by an expensive route is improved rather than skipped. Ids and
+ * priorities are stored in primitive arrays, so no boxing or Comparator
+ * dispatch takes place on add / poll.
+ */
 public class SearchPriorityQueue {
 
     // Fields
     // -----------------------------------------------------------------------------
-    public LinkedList<SearchTreeNode> list;
-    private SearchTreeNode head = new SearchTreeNode( null, null, null, 0);
+    private final int[] heap;        // heap slot -> state id
+    private final int[] positions;   // state id -> heap slot, or -1 if absent
+    private final int[] priorities;  // state id -> current priority
+    private int size;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new, empty SearchPriorityQueue able to hold the state ids
+     * 0 through capacity - 1.
+     *
+     * @param capacity One more than the largest state id that will be added
+     */
+    SearchPriorityQueue (int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        priorities = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Adds the given state id to the queue with the given priority.
+     *
+     * @param id State id to add; must not already be in the queue
+     * @param priority The priority of the state, where lower is polled first
+     */
+    public void add (int id, int priority) {
+        if (positions[id] != -1) {
+            throw new IllegalArgumentException("State " + id + " is already in the queue");
+        }
+        heap[size] = id;
+        positions[id] = size;
+        priorities[id] = priority;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the priority of a state id already in the queue.
+     *
+     * @param id State id whose priority is lowered
+     * @param priority The new priority of the state
+     * @return true if the priority was lowered, false if the given priority was
+     * not lower than the current one
+     */
+    public boolean decreaseKey (int id, int priority) {
+        if (priority >= priorities[id]) {
+            return false;
+        }
+        priorities[id] = priority;
+        siftUp(positions[id]);
+        return true;
+    }
+
+    /**
+     * Changes the priority of a state id already in the queue, whether up or down.
+     *
+     * @param id State id whose priority is changed
+     * @param priority The new priority of the state
+     */
+    public void update (int id, int priority) {
+        int old = priorities[id];
+        priorities[id] = priority;
+        if (priority < old) {
+            siftUp(positions[id]);
+        } else {
+            siftDown(positions[id]);
+        }
+    }
+
+    /**
+     * Removes the given state id from the queue, if present.
+     *
+     * @param id State id to remove
+     * @return true if the state was in the queue
+     */
+    public boolean remove (int id) {
+        int slot = positions[id];
+        if (slot == -1) {
+            return false;
+        }
+        positions[id] = -1;
+        if (slot != --size) {
+            int last = heap[size];
+            heap[slot] = last;
+            positions[last] = slot;
+            if (priorities[last] < priorities[id]) {
+                siftUp(slot);
+            } else {
+                siftDown(slot);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes and returns the state id with the lowest priority.
+     *
+     * @return The state id with the lowest priority
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int poll () {
+        if (size == 0) {
+            throw new NoSuchElementException("Frontier is empty");
+        }
+        int result = heap[0];
+        positions[result] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return result;
+    }
+
+    /**
+     * @return The state id with the lowest priority, without removing it
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public int peek () {
+        if (size == 0) {
+            throw new NoSuchElementException("Frontier is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Returns whether or not the given state id is currently in the queue.
+     *
+     * @param id State id to test
+     * @return Boolean of whether or not the state is in the queue
+     */
+    public boolean contains (int id) {
+        return positions[id] != -1;
+    }
+
+    /**
+     * Returns the current priority of a state id in the queue.
+     *
+     * @param id State id to look up; must be in the queue
+     * @return The current priority of the state
+     */
+    public int getPriority (int id) {
+        return priorities[id];
+    }
+
+    /**
+     * @return The number of state ids in the queue
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * @return Whether or not the queue is empty
+     */
+    public boolean isEmpty () {
+        return size == 0;
+    }
 
-    public SearchPriorityQueue() {
-        list = new LinkedList<>();
+    /**
+     * Removes every state id from the queue, in time proportional to the number
+     * of ids removed, so that the queue may be reused for another search.
+     */
+    public void clear () {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
 
+    /**
+     * Moves the entry at the given heap slot up until its parent's priority is
+     * no greater than its own.
+     */
+    private void siftUp (int slot) {
+        int id = heap[slot], priority = priorities[id];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            int parentId = heap[parent];
+            if (priorities[parentId] <= priority) {
+                break;
+            }
+            heap[slot] = parentId;
+            positions[parentId] = slot;
+            slot = parent;
+        }
+        heap[slot] = id;
+        positions[id] = slot;
     }
 
-    public boolean add( SearchTreeNode s ) {
+    /**
+     * Moves the entry at the given heap slot down until neither child has a
+     * lower priority than its own.
+     */
+    private void siftDown (int slot) {
+        int id = heap[slot], priority = priorities[id];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1, right = child + 1;
+            if (right < size && priorities[heap[right]] < priorities[heap[child]]) {
+                child = right;
+            }
+            int childId = heap[child];
+            if (priority <= priorities[childId]) {
+                break;
+            }
+            heap[slot] = childId;
+            positions[childId] = slot;
+            slot = child;
+        }
+        heap[slot] = id;
+        positions[id] = slot;
+    }
 
+    @Override
+    public String toString () {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append("(").append(priorities[heap[i]]).append(" , ").append(heap[i]).append(")");
+        }
+        return result.append("]").toString();
     }
+
 }
@@ -0,0 +1,192 @@
+// package pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Reusable set of A* search structures for a single MazeProblem, so that a thread
+ * answering many queries against the same maze allocates its frontier and
+ * per-state arrays once rather than once per search; Pathfinder.goFromTo runs on
+ * a workspace of its own, used once. Each state's entries are valid only when
+ * stamped with the current search's generation, so starting a new search costs
+ * O(1) rather than clearing every array. A SearchWorkspace is not thread-safe;
+ * give each thread its own.
+ */
+public class SearchWorkspace {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeProblem problem;
+    private final SearchPriorityQueue frontier;
+    private final int[] pathCosts, parents, stamps;
+    private final byte[] actions;
+    private final int[] neighbors = new int[4];
+    private final byte[] neighborActions = new byte[4];
+
+    // A state is open in the current search when its stamp is 2 * generation,
+    // and closed when it is 2 * generation + 1
+    private int generation;
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new SearchWorkspace sized for the given MazeProblem.
+     *
+     * @param problem The MazeProblem every search in this workspace will run on
+     */
+    SearchWorkspace (MazeProblem problem) {
+        int size = problem.getRows() * problem.getCols();
+        this.problem = problem;
+        this.frontier = new SearchPriorityQueue(size);
+        this.pathCosts = new int[size];
+        this.parents = new int[size];
+        this.stamps = new int[size];
+        this.actions = new byte[size];
+    }
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * as Pathfinder.goFromTo does, reusing this workspace's structures.
+     *
+     * @param startState MazeState representing state where to navigate from
+     * @param endState MazeState representing state needed to navigate to; if it
+     * is a goal, the search may end at any goal
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public ArrayList<String> goFromTo (MazeState startState, MazeState endState) {
+        return goFromTo(startState, endState, SearchListener.NONE, problem);
+    }
+
+    /**
+     * Returns list of steps to take from first input state to second input state,
+     * as Pathfinder.goFromTo does, ordering the frontier by the given Heuristic and
+     * reporting the progress of the search to the given listener.
+     *
+     * @param startState MazeState representing state where to navigate from
+     * @param endState MazeState representing state needed to navigate to; if it
+     * is a goal, the search may end at any goal
+     * @param listener SearchListener notified of each expansion, enqueue and the goal
+     * @param heuristic Heuristic estimating the remaining cost; the MazeProblem
+     * itself by default
+     * @return ArrayList<String> path leading to input state, or null if there is none
+     */
+    public ArrayList<String> goFromTo (MazeState startState, MazeState endState, SearchListener listener, Heuristic heuristic) {
+        int endId = search(startState, endState, listener, heuristic);
+        return (endId == -1) ? null : Pathfinder.buildPath(parents, actions, endId);
+    }
+
+    /**
+     * Returns the steps to take from first input state to second input state as
+     * a PathEncoding, as Pathfinder.goFromToEncoded does, reusing this
+     * workspace's structures.
+     *
+     * @param startState MazeState representing state where to navigate from
+     * @param endState MazeState representing state needed to navigate to
+     * @return PathEncoding of the path leading to input state, or null if there is none
+     */
+    public PathEncoding goFromToEncoded (MazeState startState, MazeState endState) {
+        int endId = search(startState, endState, SearchListener.NONE, problem);
+        return (endId == -1) ? null : PathEncoding.fromSearchTree(parents, actions, endId);
+    }
+
+    /**
+     * Runs an A* search, recording the search tree in this workspace: each state's
+     * parent (-1 for the root) and the direction ordinal of the action leading to
+     * it from its parent.
+     *
+     * @return The id of the state at which the search ended, or -1 if there is no path
+     */
+    private int search (MazeState startState, MazeState endState, SearchListener listener, Heuristic heuristic) {
+        // Reject targets in another connected component without searching at all
+        if (!problem.canReach(startState, endState)) {
+            return -1;
+        }
+        int startId = problem.getStateId(startState), endId = problem.getStateId(endState);
+        boolean lookingForGoal = problem.isGoal(endId);
+        // States are only looked up for a listener that will use them
+        boolean listening = listener != SearchListener.NONE;
+        begin();
+
+        int estimate = estimate(heuristic, startId, endId, lookingForGoal);
+        if (estimate == DistanceTable.UNREACHABLE) {
+            return -1;
+        }
+        open(startId, 0, -1, (byte) 0);
+        frontier.add(startId, estimate);
+        listener.onEnqueue(startState, 0, estimate);
+
+        while (!frontier.isEmpty()) {
+            int currentId = frontier.poll();
+            stamps[currentId] = 2 * generation + 1;
+            if (listening) {
+                listener.onExpand(problem.getState(currentId), pathCosts[currentId]);
+            }
+
+            boolean finished = (lookingForGoal) ? problem.isGoal(currentId) : currentId == endId;
+            if (finished) {
+                if (listening) {
+                    listener.onGoal(problem.getState(currentId), pathCosts[currentId]);
+                }
+                return currentId;
+            }
+
+            int count = problem.expand(currentId, neighbors, neighborActions);
+            for (int i = 0; i < count; i++) {
+                int nextId = neighbors[i];
+                if (stamps[nextId] == 2 * generation + 1) {
+                    continue;
+                }
+                // Skip states from which the target is known to be unreachable
+                estimate = estimate(heuristic, nextId, endId, lookingForGoal);
+                if (estimate == DistanceTable.UNREACHABLE) {
+                    continue;
+                }
+
+                // Path cost g(n) accumulates along the route; f(n) = g(n) + h(n)
+                // orders the frontier
+                int pathCost = pathCosts[currentId] + problem.getCost(nextId);
+                if (stamps[nextId] != 2 * generation) {
+                    open(nextId, pathCost, currentId, neighborActions[i]);
+                    frontier.add(nextId, pathCost + estimate);
+                } else if (pathCost < pathCosts[nextId]) {
+                    // Found a cheaper route to a state already on the frontier
+                    open(nextId, pathCost, currentId, neighborActions[i]);
+                    frontier.decreaseKey(nextId, pathCost + estimate);
+                } else {
+                    continue;
+                }
+                if (listening) {
+                    listener.onEnqueue(problem.getState(nextId), pathCost, pathCost + estimate);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Starts a new search, invalidating every entry left by the last one.
+     */
+    private void begin () {
+        frontier.clear();
+        if (generation == Integer.MAX_VALUE / 2) {
+            Arrays.fill(stamps, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+
+    private void open (int stateId, int pathCost, int parent, byte action) {
+        stamps[stateId] = 2 * generation;
+        pathCosts[stateId] = pathCost;
+        parents[stateId] = parent;
+        actions[stateId] = action;
+    }
+
+    private static int estimate (Heuristic heuristic, int stateId, int endId, boolean lookingForGoal) {
+        return (lookingForGoal) ? heuristic.distanceToGoal(stateId) : heuristic.estimateDistance(stateId, endId);
+    }
+
+}
@@ -0,0 +1,28 @@
+// package pathfinder.informed;
+
+import java.util.ArrayList;
+
+/**
+ * Callback interface through which an anytime search reports each solution it
+ * finds, every one cheaper than the last, so that a caller can act on a good
+ * enough path without waiting for the search to prove one optimal.
+ */
+public interface SolutionListener {
+
+    /**
+     * Listener that ignores every solution.
+     */
+    SolutionListener NONE = (path, pathCost, bound) -> {};
+
+    /**
+     * Called each time the search finds a cheaper solution.
+     *
+     * @param path The actions of the solution, of the format ["R", "R", "L", ...];
+     * a fresh list that the listener may keep
+     * @param pathCost The total cost of the solution
+     * @param bound The solution costs at most bound times the optimal cost; 1 once
+     * it is known to be optimal
+     */
+    void onSolution (ArrayList<String> path, int pathCost, double bound);
+
+}
@@ -0,0 +1,145 @@
+// package pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Set of MazeStates backed by a packed bitset over the maze grid, in which each
+ * state is keyed by its grid index (row * cols + col). Membership tests and
+ * insertions are constant time and never allocate, making it suitable for the
+ * visited and frontier sets of a search over large mazes.
+ */
+public class StateSet {
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final long[] bits;
+    private final int cols;
+    private int size;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a new, empty StateSet able to hold any state of a maze with the
+     * given dimensions.
+     *
+     * @param rows Number of rows in the maze
+     * @param cols Number of columns in the maze
+     */
+    StateSet (int rows, int cols) {
+        this.cols = cols;
+        this.bits = new long[(rows * cols + 63) >>> 6];
+    }
+
+    /**
+     * Constructs a new, empty StateSet sized to the given MazeProblem's grid.
+     *
+     * @param problem The MazeProblem whose states will be stored in this set
+     */
+    StateSet (MazeProblem problem) {
+        this(problem.getRows(), problem.getCols());
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Adds the state with the given grid index to this set.
+     *
+     * @param id Grid index (row * cols + col) of the state to add
+     * @return true if the state was not already in the set, false otherwise
+     */
+    public boolean add (int id) {
+        long mask = 1L << id;
+        int word = id >>> 6;
+        if ((bits[word] & mask) != 0) {
+            return false;
+        }
+        bits[word] |= mask;
+        size++;
+        return true;
+    }
+
+    /**
+     * Adds the given state to this set.
+     *
+     * @param state A MazeState (col, row) to add
+     * @return true if the state was not already in the set, false otherwise
+     */
+    public boolean add (MazeState state) {
+        return add(state.row * cols + state.col);
+    }
+
+    /**
+     * Removes the state with the given grid index from this set.
+     *
+     * @param id Grid index (row * cols + col) of the state to remove
+     * @return true if the state was in the set, false otherwise
+     */
+    public boolean remove (int id) {
+        long mask = 1L << id;
+        int word = id >>> 6;
+        if ((bits[word] & mask) == 0) {
+            return false;
+        }
+        bits[word] &= ~mask;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes the given state from this set.
+     *
+     * @param state A MazeState (col, row) to remove
+     * @return true if the state was in the set, false otherwise
+     */
+    public boolean remove (MazeState state) {
+        return remove(state.row * cols + state.col);
+    }
+
+    /**
+     * Returns whether or not the state with the given grid index is in this set.
+     *
+     * @param id Grid index (row * cols + col) of the state to test
+     * @return Boolean of whether or not the state is in this set
+     */
+    public boolean contains (int id) {
+        return (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    /**
+     * Returns whether or not the given state is in this set.
+     *
+     * @param state A MazeState (col, row) to test
+     * @return Boolean of whether or not the state is in this set
+     */
+    public boolean contains (MazeState state) {
+        return contains(state.row * cols + state.col);
+    }
+
+    /**
+     * Removes every state from this set, keeping the backing storage so that the
+     * set may be reused for another search over the same maze.
+     */
+    public void clear () {
+        Arrays.fill(bits, 0L);
+        size = 0;
+    }
+
+    /**
+     * @return The number of states in this set
+     */
+    public int size () {
+        return size;
+    }
+
+    /**
+     * @return Whether or not this set holds no states
+     */
+    public boolean isEmpty () {
+        return size == 0;
+    }
+
+}
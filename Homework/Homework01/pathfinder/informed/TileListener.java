@@ -0,0 +1,19 @@
+// package pathfinder.informed;
+
+/**
+ * Callback interface through which a MazeProblem reports changes to its tiles,
+ * so that anything derived from the grid (replanners, abstraction layers, ...)
+ * can repair itself rather than be rebuilt from scratch.
+ */
+public interface TileListener {
+
+    /**
+     * Called after the tile of a state has been changed by MazeProblem.setTile.
+     *
+     * @param stateId id of the state whose tile changed
+     * @param oldTile The tile code before the change
+     * @param newTile The tile code after the change
+     */
+    void onTileChanged (int stateId, byte oldTile, byte newTile);
+
+}
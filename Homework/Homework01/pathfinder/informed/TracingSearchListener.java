@@ -0,0 +1,44 @@
+// package pathfinder.informed;
+
+import java.io.PrintStream;
+
+/**
+ * SearchListener that prints every search event to a PrintStream; useful for
+ * debugging a search on small mazes, but far too verbose for large ones.
+ */
+public class TracingSearchListener implements SearchListener {
+
+    private final PrintStream out;
+
+    /**
+     * Constructs a new TracingSearchListener that prints to System.out.
+     */
+    TracingSearchListener () {
+        this(System.out);
+    }
+
+    /**
+     * Constructs a new TracingSearchListener that prints to the given stream.
+     *
+     * @param out The PrintStream to which events are written
+     */
+    TracingSearchListener (PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void onExpand (MazeState state, int pathCost) {
+        out.println("Expanding " + state + " with g(n) " + pathCost);
+    }
+
+    @Override
+    public void onEnqueue (MazeState state, int pathCost, int priority) {
+        out.println("  Enqueuing " + state + " with g(n) " + pathCost + " and f(n) " + priority);
+    }
+
+    @Override
+    public void onGoal (MazeState state, int pathCost) {
+        out.println("Reached " + state + " with g(n) " + pathCost);
+    }
+
+}
@@ -0,0 +1,50 @@
+// package pathfinder.informed;
+
+/**
+ * Fixed-size, direct-mapped table recording the cheapest path cost with which each
+ * state has been reached during one iteration of a depth-first search, so that a
+ * state reached again no more cheaply need not be searched again. Entries are
+ * simply overwritten on collision, so the table never grows beyond the capacity
+ * it was given.
+ */
+public class TranspositionTable {
+
+    private final int[] stateIds, pathCosts, iterations;
+    private final int shift;
+
+    /**
+     * Constructs a new, empty TranspositionTable.
+     *
+     * @param capacity Maximum number of entries; rounded up to a power of two
+     */
+    TranspositionTable (int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        stateIds = new int[size];
+        pathCosts = new int[size];
+        iterations = new int[size];
+        shift = 32 - Integer.numberOfTrailingZeros(size);
+    }
+
+    /**
+     * Records that the given state was reached with the given path cost during
+     * the given iteration, unless it was already reached at least as cheaply
+     * during that iteration.
+     *
+     * @param stateId id of the state reached
+     * @param pathCost cost g(n) of the path by which it was reached
+     * @param iteration Number of the current iteration, starting at 1
+     * @return true if the state was already reached at least as cheaply during
+     * this iteration, so that the new path to it may be pruned
+     */
+    public boolean prune (int stateId, int pathCost, int iteration) {
+        int slot = (stateId * 0x9E3779B1) >>> shift;
+        if (iterations[slot] == iteration && stateIds[slot] == stateId && pathCosts[slot] <= pathCost) {
+            return true;
+        }
+        stateIds[slot] = stateId;
+        pathCosts[slot] = pathCost;
+        iterations[slot] = iteration;
+        return false;
+    }
+
+}
@@ -0,0 +1,265 @@
+// package pathfinder.informed;
+
+import java.util.*;
+
+/**
+ * Plans the cheapest tour from a start state through every one of a set of
+ * waypoints (e.g. a MazeProblem's keys, or a picker's pick locations), in
+ * whatever order is cheapest, and on to the nearest goal. One reverse Dijkstra
+ * search per waypoint, plus one from the goals, gives the exact cost between
+ * any state and any waypoint; the order is then chosen by the Held-Karp
+ * dynamic program over subsets of waypoints, in O(2^n * n^2) time. The tables
+ * also give the path along each leg of the tour without another search, so
+ * a planner built once answers tours from any number of starts cheaply.
+ *
+ * Held-Karp is exact, but only tractable for a few waypoints; beyond
+ * MAX_EXACT_WAYPOINTS they are ordered greedily, nearest first.
+ */
+public class WaypointPlanner implements TileListener {
+
+    /**
+     * Largest number of waypoints ordered exactly by Held-Karp.
+     */
+    public static final int MAX_EXACT_WAYPOINTS = 16;
+
+    // Fields
+    // -----------------------------------------------------------------------------
+    private final MazeProblem problem;
+    private final int[] waypoints;
+    // Cost from any state to each waypoint, and to the nearest goal; rebuilt on
+    // the next plan once a tile has changed
+    private DistanceTable[] toWaypoint;
+    private DistanceTable toGoal;
+    private volatile boolean stale = true;
+
+
+    // Constructor
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Constructs a WaypointPlanner for the given waypoints of a MazeProblem; the
+     * distance tables are computed on the first plan.
+     *
+     * @param problem The MazeProblem to plan tours in
+     * @param waypoints The MazeStates every tour must pass through; duplicates are
+     * visited once
+     */
+    public WaypointPlanner (MazeProblem problem, List<MazeState> waypoints) {
+        StateSet seen = new StateSet(problem);
+        int[] ids = new int[waypoints.size()];
+        int count = 0;
+        for (MazeState waypoint : waypoints) {
+            if (seen.add(waypoint)) {
+                ids[count++] = problem.getStateId(waypoint);
+            }
+        }
+        this.problem = problem;
+        this.waypoints = Arrays.copyOf(ids, count);
+        problem.addTileListener(this);
+    }
+
+
+    // Methods
+    // -----------------------------------------------------------------------------
+
+    /**
+     * Given a MazeProblem, returns a solution that collects every one of its keys
+     * (KEY_STATES) in the cheapest order before ending at the nearest goal.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return An ArrayList of Strings representing actions that lead from the initial
+     * state through every key to a goal, of the format: ["R", "R", "L", ...], or
+     * null if there is none
+     */
+    public static ArrayList<String> solve (MazeProblem problem) {
+        if (problem.INITIAL_STATE == null || problem.GOAL_STATES.isEmpty()) {
+            return null;
+        }
+        WaypointPlanner planner = new WaypointPlanner(problem, problem.KEY_STATES);
+        try {
+            return planner.planFrom(problem.INITIAL_STATE);
+        } finally {
+            planner.close();
+        }
+    }
+
+    /**
+     * Returns the cheapest tour from the given state through every waypoint and
+     * on to the nearest goal.
+     *
+     * @param start MazeState where the tour begins
+     * @return The actions of the tour, or null if some waypoint or every goal is
+     * unreachable
+     */
+    public ArrayList<String> planFrom (MazeState start) {
+        int[] order = orderFrom(start);
+        if (order == null) {
+            return null;
+        }
+        ArrayList<String> result = new ArrayList<>();
+        MazeState current = start;
+        for (int i : order) {
+            result.addAll(toWaypoint[i].pathFrom(current));
+            current = problem.getState(waypoints[i]);
+        }
+        result.addAll(toGoal.pathFrom(current));
+        return result;
+    }
+
+    /**
+     * Returns the order in which the cheapest tour from the given state visits
+     * the waypoints: exact for up to MAX_EXACT_WAYPOINTS of them, and nearest
+     * first beyond that.
+     *
+     * @param start MazeState where the tour begins
+     * @return Indices into this planner's waypoints, in the order visited, or
+     * null if some waypoint or every goal is unreachable
+     */
+    public int[] orderFrom (MazeState start) {
+        if (stale) {
+            computeTables();
+        }
+        int startId = problem.getStateId(start);
+        if (!problem.isConnectedToGoal(startId)) {
+            return null;
+        }
+        for (int waypoint : waypoints) {
+            if (!problem.isConnected(startId, waypoint)) {
+                return null;
+            }
+        }
+        return (waypoints.length <= MAX_EXACT_WAYPOINTS) ? heldKarp(startId) : nearestFirst(startId);
+    }
+
+    /**
+     * @return The waypoints of this planner, in the order the indices returned by
+     * orderFrom refer to
+     */
+    public List<MazeState> getWaypoints () {
+        List<MazeState> result = new ArrayList<>(waypoints.length);
+        for (int waypoint : waypoints) {
+            result.add(problem.getState(waypoint));
+        }
+        return result;
+    }
+
+    /**
+     * Marks the distance tables stale, to be recomputed on the next plan.
+     */
+    @Override
+    public void onTileChanged (int stateId, byte oldTile, byte newTile) {
+        stale = true;
+    }
+
+    /**
+     * Stops listening for tile changes in the maze, so that this planner can be
+     * garbage collected while the maze lives on.
+     */
+    public void close () {
+        problem.removeTileListener(this);
+    }
+
+    /**
+     * Runs one reverse Dijkstra search from each waypoint, and one from all of
+     * the goals at once.
+     */
+    private synchronized void computeTables () {
+        if (!stale) {
+            return;
+        }
+        DistanceTable[] tables = new DistanceTable[waypoints.length];
+        for (int i = 0; i < waypoints.length; i++) {
+            tables[i] = new DistanceTable(problem, waypoints[i]);
+        }
+        int[] goalIds = new int[problem.GOAL_STATES.size()];
+        for (int i = 0; i < goalIds.length; i++) {
+            goalIds[i] = problem.getStateId(problem.GOAL_STATES.get(i));
+        }
+        toGoal = new DistanceTable(problem, goalIds);
+        toWaypoint = tables;
+        stale = false;
+    }
+
+    /**
+     * Orders the waypoints by the Held-Karp dynamic program: costs[mask][i] is the
+     * cost of the cheapest route from the start through exactly the waypoints in
+     * mask, ending at waypoint i. Every waypoint is known to be reachable, so no
+     * cost is ever UNREACHABLE.
+     */
+    private int[] heldKarp (int startId) {
+        int n = waypoints.length, full = (1 << n) - 1;
+        if (n == 0) {
+            return new int[0];
+        }
+        int[][] costs = new int[1 << n][n];
+        byte[][] previous = new byte[1 << n][n];
+        for (int[] row : costs) {
+            Arrays.fill(row, Integer.MAX_VALUE);
+        }
+        for (int i = 0; i < n; i++) {
+            costs[1 << i][i] = toWaypoint[i].get(startId);
+            previous[1 << i][i] = -1;
+        }
+        for (int mask = 1; mask <= full; mask++) {
+            for (int last = 0; last < n; last++) {
+                int cost = costs[mask][last];
+                if (cost == Integer.MAX_VALUE) {
+                    continue;
+                }
+                for (int next = 0; next < n; next++) {
+                    if ((mask & (1 << next)) != 0) {
+                        continue;
+                    }
+                    int nextMask = mask | (1 << next);
+                    int nextCost = cost + toWaypoint[next].get(waypoints[last]);
+                    if (nextCost < costs[nextMask][next]) {
+                        costs[nextMask][next] = nextCost;
+                        previous[nextMask][next] = (byte) last;
+                    }
+                }
+            }
+        }
+
+        // Close the tour at the nearest goal, then walk back through the table
+        int last = -1, best = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            int cost = costs[full][i] + toGoal.get(waypoints[i]);
+            if (cost < best) {
+                best = cost;
+                last = i;
+            }
+        }
+        int[] order = new int[n];
+        for (int mask = full, i = n - 1; last != -1; i--) {
+            order[i] = last;
+            int before = previous[mask][last];
+            mask &= ~(1 << last);
+            last = before;
+        }
+        return order;
+    }
+
+    /**
+     * Orders the waypoints greedily, always visiting the nearest unvisited one
+     * next; used when there are too many for Held-Karp.
+     */
+    private int[] nearestFirst (int startId) {
+        int n = waypoints.length;
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        int current = startId;
+        for (int k = 0; k < n; k++) {
+            int nearest = -1;
+            for (int i = 0; i < n; i++) {
+                if (!visited[i] && (nearest == -1 || toWaypoint[i].get(current) < toWaypoint[nearest].get(current))) {
+                    nearest = i;
+                }
+            }
+            visited[nearest] = true;
+            order[k] = nearest;
+            current = waypoints[nearest];
+        }
+        return order;
+    }
+
+}